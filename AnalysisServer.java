@@ -0,0 +1,207 @@
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+// Long running clumping service. Parsed marker files stay in a DatasetCache between requests, so
+// only the first request for a file pays for loading it, and the JIT stays warm. Listens on the
+// loopback interface only.
+//
+//   GET /clump?input=/data/gwas.txt&index=0.00001&suggestive=0.0001&searchSpace=500000[&engine=sweep][&format=bed]
+//     answers with the regions, in the same layout as a result file of that format
+//   GET /status
+//     lists the cached datasets, one per line: path, markers, estimated bytes
+public class AnalysisServer {
+
+	static final int DEFAULT_PORT = 8470;
+
+	final RunOptions _options;
+	final DatasetCache _datasets;
+	// Shared by every request, so concurrent requests do not oversubscribe the processors
+	final ForkJoinPool _pool;
+	HttpServer _server;
+
+	// java UniqueRegions serve [--port 8470] [--cache-memory megabytes] [--threads n] [--cache] [--offheap] [--quiet]
+	public static void main(String[] args) {
+		var options = RunOptions.Parse(args, 0);
+		Diagnostics.setEnabled(!options.Quiet);
+		var server = new AnalysisServer(options);
+		try {
+			server.Start();
+		}
+		catch (IOException e) {
+			System.out.println("Could not listen on port " + options.Port + ": " + e);
+			server._pool.shutdown();
+			return;
+		}
+		System.out.println("Listening on http://localhost:" + server.GetPort() + "/clump");
+	}
+
+	public AnalysisServer(RunOptions options) {
+		_options = options;
+		_datasets = new DatasetCache(options.CacheMemory, options);
+		_pool = new ForkJoinPool(options.Threads);
+	}
+
+	public void Start() throws IOException {
+		_server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), _options.Port), 0);
+		_server.createContext("/clump", this::HandleClump);
+		_server.createContext("/status", this::HandleStatus);
+		ExecutorService executor = Executors.newFixedThreadPool(_options.Threads);
+		_server.setExecutor(executor);
+		_server.start();
+	}
+
+	public void Stop() {
+		_server.stop(0);
+		((ExecutorService) _server.getExecutor()).shutdown();
+		_pool.shutdown();
+	}
+
+	public int GetPort() {
+		return _server.getAddress().getPort();
+	}
+
+	void HandleClump(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			long startNanos = System.nanoTime();
+			RegionQuery query;
+			try {
+				query = RegionQuery.Parse(exchange.getRequestURI().getRawQuery());
+			}
+			catch (IllegalArgumentException e) {
+				Send(exchange, 400, e.getMessage() + "\n");
+				return;
+			}
+			if (!Files.isRegularFile(query._input)) {
+				Send(exchange, 404, "No such input file " + query._input + "\n");
+				return;
+			}
+
+			var response = new ByteArrayOutputStream();
+			int regions;
+			try {
+				var dataset = _datasets.Get(query._input);
+				var geneAnalyzer = UniqueRegions.CreateAnalyzer(query._input.toString(), null,
+						query._indexPvalueThreshold, query._suggestivePvalueThreshold, query._searchSpace, query.OptionsFor(_options),
+						_datasets.GetSuggestiveIndex(dataset, Double.parseDouble(query._suggestivePvalueThreshold)));
+				geneAnalyzer.setDataSet(dataset.GetStore());
+				geneAnalyzer.setPool(_pool);
+				try (RegionWriter writer = query._format.Open(response, RegionWriter.DEFAULT_BUFFER_SIZE)) {
+					geneAnalyzer.RunThroughDataset(writer);
+				}
+				regions = geneAnalyzer._resultSet.size();
+			}
+			catch (IOException | RuntimeException e) {
+				e.printStackTrace();
+				Send(exchange, 500, "Could not analyse " + query._input + ": " + e + "\n");
+				return;
+			}
+
+			exchange.getResponseHeaders().set("Content-Type", query._format == ResultFormat.BINARY
+					? "application/octet-stream" : "text/tab-separated-values; charset=utf-8");
+			exchange.sendResponseHeaders(200, response.size());
+			try (OutputStream body = exchange.getResponseBody()) {
+				response.writeTo(body);
+			}
+			Diagnostics.Print("Clumped " + query._input + " into " + regions + " regions in "
+					+ (System.nanoTime() - startNanos) / 1_000_000 + " ms");
+		}
+	}
+
+	void HandleStatus(HttpExchange exchange) throws IOException {
+		try (exchange) {
+			var status = new StringBuilder();
+			for (DatasetCache.Dataset dataset : _datasets.GetDatasets()) {
+				if (dataset.GetStore() != null) {
+					status.append(dataset.GetPath()).append('\t').append(dataset.GetStore().Size())
+							.append('\t').append(dataset.GetEstimatedBytes()).append('\n');
+				}
+			}
+			Send(exchange, 200, status.toString());
+		}
+	}
+
+	private static void Send(HttpExchange exchange, int status, String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+		exchange.sendResponseHeaders(status, bytes.length);
+		try (OutputStream body = exchange.getResponseBody()) {
+			body.write(bytes);
+		}
+	}
+
+	// The parameters of one /clump request. Thresholds are kept as text, the way the command line
+	// passes them to UniqueRegions.CreateAnalyzer.
+	static class RegionQuery {
+
+		Path _input;
+		String _indexPvalueThreshold;
+		String _suggestivePvalueThreshold;
+		String _searchSpace;
+		String _engine;
+		ResultFormat _format = ResultFormat.TSV;
+
+		static RegionQuery Parse(String rawQuery) {
+			Map<String, String> parameters = new HashMap<String, String>();
+			if (rawQuery != null) {
+				for (String parameter : rawQuery.split("&")) {
+					int equals = parameter.indexOf('=');
+					if (equals > 0) {
+						parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+								URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+					}
+				}
+			}
+
+			var query = new RegionQuery();
+			query._input = Paths.get(Require(parameters, "input"));
+			query._indexPvalueThreshold = Require(parameters, "index");
+			query._suggestivePvalueThreshold = Require(parameters, "suggestive");
+			query._searchSpace = Require(parameters, "searchSpace");
+			query._engine = parameters.get("engine");
+			if (parameters.containsKey("format")) {
+				query._format = ResultFormat.Parse(parameters.get("format"));
+			}
+			// Fail here, with a 400, rather than in the analyzer
+			Double.parseDouble(query._indexPvalueThreshold);
+			Double.parseDouble(query._suggestivePvalueThreshold);
+			Integer.parseInt(query._searchSpace);
+			if (query._engine != null && !query._engine.equals("recursive") && !query._engine.equals("sweep")) {
+				throw new IllegalArgumentException("Unknown engine " + query._engine + ", expected recursive or sweep");
+			}
+			return query;
+		}
+
+		// The server's options with the engine of this request
+		RunOptions OptionsFor(RunOptions serverOptions) {
+			var options = new RunOptions();
+			options.Engine = _engine != null ? _engine : serverOptions.Engine;
+			options.Threads = serverOptions.Threads;
+			options.Format = _format;
+			return options;
+		}
+
+		private static String Require(Map<String, String> parameters, String name) {
+			var value = parameters.get(name);
+			if (value == null || value.isEmpty()) {
+				throw new IllegalArgumentException("Missing parameter " + name);
+			}
+			return value;
+		}
+	}
+}
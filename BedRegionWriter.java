@@ -0,0 +1,23 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+// One BED4 line per region: chromosome, zero based start, end and the lead marker as its name.
+// Region start and stop are one based and inclusive, so only the start shifts.
+public class BedRegionWriter extends RegionWriter {
+
+	public BedRegionWriter(OutputStream output, int bufferSize) {
+		super(output, bufferSize);
+	}
+
+	@Override
+	public void Write(Region region) throws IOException {
+		PutText(region.getChromosome());
+		PutByte('\t');
+		PutDecimal(region.getRegionStart() - 1L);
+		PutByte('\t');
+		PutDecimal(region.getRegionStop());
+		PutByte('\t');
+		PutText(region.getMarkerName());
+		PutByte('\n');
+	}
+}
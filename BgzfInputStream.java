@@ -0,0 +1,188 @@
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Decompresses a BGZF file (the blocked gzip written by bgzip). Every BGZF block is an independent
+// gzip member of at most 64 KB, so blocks are read sequentially but inflated in parallel, a number
+// of blocks ahead of the reader, and handed out in file order.
+public class BgzfInputStream extends InputStream {
+
+	static final int HEADER_SIZE = 12;
+	static final int TRAILER_SIZE = 8;
+	static final int MAX_BLOCK_SIZE = 1 << 16;
+
+	private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+	final DataInputStream _compressed;
+	final ForkJoinPool _pool;
+	final int _readAhead;
+	final ArrayDeque<ForkJoinTask<byte[]>> _pending;
+
+	byte[] _current;
+	int _currentPosition;
+	boolean _endOfInput;
+
+	public BgzfInputStream(InputStream compressed, int parallelism) {
+		_compressed = new DataInputStream(compressed);
+		_pool = new ForkJoinPool(parallelism);
+		_readAhead = parallelism * 4;
+		_pending = new ArrayDeque<ForkJoinTask<byte[]>>();
+		_current = new byte[0];
+	}
+
+	// True when the stream starts with a gzip header carrying the BGZF "BC" extra subfield
+	public static boolean IsBgzf(byte[] header, int length) {
+		if (length < 18 || (header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || (header[3] & 0x04) == 0) {
+			return false;
+		}
+		return header[12] == 'B' && header[13] == 'C';
+	}
+
+	@Override
+	public int read() throws IOException {
+		byte[] single = new byte[1];
+		return read(single, 0, 1) < 0 ? -1 : single[0] & 0xff;
+	}
+
+	@Override
+	public int read(byte[] target, int offset, int length) throws IOException {
+		while (_currentPosition == _current.length) {
+			if (!NextBlock()) {
+				return -1;
+			}
+		}
+		int count = Math.min(length, _current.length - _currentPosition);
+		System.arraycopy(_current, _currentPosition, target, offset, count);
+		_currentPosition += count;
+		return count;
+	}
+
+	@Override
+	public void close() throws IOException {
+		_pool.shutdownNow();
+		_compressed.close();
+	}
+
+	private boolean NextBlock() throws IOException {
+		while (!_endOfInput && _pending.size() < _readAhead) {
+			byte[] block = ReadBlock();
+			if (block == null) {
+				_endOfInput = true;
+			}
+			else {
+				_pending.add(_pool.submit(() -> Inflate(block)));
+			}
+		}
+		if (_pending.isEmpty()) {
+			return false;
+		}
+		try {
+			_current = _pending.poll().join();
+		}
+		catch (UncheckedIOException e) {
+			throw e.getCause();
+		}
+		_currentPosition = 0;
+		return true;
+	}
+
+	// The whole compressed block, header included, or null at the end of the file
+	private byte[] ReadBlock() throws IOException {
+		byte[] header = new byte[HEADER_SIZE];
+		int first = _compressed.read();
+		if (first < 0) {
+			return null;
+		}
+		header[0] = (byte) first;
+		_compressed.readFully(header, 1, HEADER_SIZE - 1);
+		if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || (header[3] & 0x04) == 0) {
+			throw new IOException("Not a BGZF block");
+		}
+
+		int extraLength = (header[10] & 0xff) | (header[11] & 0xff) << 8;
+		byte[] extra = new byte[extraLength];
+		_compressed.readFully(extra);
+
+		int blockSize = -1;
+		for (int i = 0; i + 4 <= extraLength; ) {
+			int subfieldLength = (extra[i + 2] & 0xff) | (extra[i + 3] & 0xff) << 8;
+			if (i + 4 + subfieldLength > extraLength) {
+				throw new IOException("Corrupt BGZF block, an extra subfield runs past the extra field");
+			}
+			if (extra[i] == 'B' && extra[i + 1] == 'C' && subfieldLength == 2) {
+				blockSize = ((extra[i + 4] & 0xff) | (extra[i + 5] & 0xff) << 8) + 1;
+			}
+			i += 4 + subfieldLength;
+		}
+		if (blockSize < 0) {
+			throw new IOException("BGZF block without a BC block size");
+		}
+		// Room for the header, the extra field and the trailer, or the compressed length goes negative
+		if (blockSize < HEADER_SIZE + extraLength + TRAILER_SIZE) {
+			throw new IOException("Corrupt BGZF block, a block size of " + blockSize + " leaves no room for its header and trailer");
+		}
+
+		byte[] block = new byte[blockSize];
+		System.arraycopy(header, 0, block, 0, HEADER_SIZE);
+		System.arraycopy(extra, 0, block, HEADER_SIZE, extraLength);
+		try {
+			_compressed.readFully(block, HEADER_SIZE + extraLength, blockSize - HEADER_SIZE - extraLength);
+		}
+		catch (EOFException e) {
+			throw new IOException("Truncated BGZF block", e);
+		}
+		int uncompressedSize = ReadInt(block, blockSize - 4);
+		if (uncompressedSize < 0 || uncompressedSize > MAX_BLOCK_SIZE) {
+			throw new IOException("Corrupt BGZF block, an uncompressed size of " + uncompressedSize + " is more than a block holds");
+		}
+		return block;
+	}
+
+	private static byte[] Inflate(byte[] block) {
+		int extraLength = (block[10] & 0xff) | (block[11] & 0xff) << 8;
+		int dataStart = HEADER_SIZE + extraLength;
+		int dataLength = block.length - dataStart - TRAILER_SIZE;
+		int expectedCrc = ReadInt(block, block.length - TRAILER_SIZE);
+		int uncompressedSize = ReadInt(block, block.length - 4);
+
+		byte[] uncompressed = new byte[uncompressedSize];
+		Inflater inflater = INFLATERS.get();
+		inflater.reset();
+		inflater.setInput(block, dataStart, dataLength);
+		try {
+			int inflated = 0;
+			while (inflated < uncompressedSize && !inflater.finished()) {
+				int count = inflater.inflate(uncompressed, inflated, uncompressedSize - inflated);
+				if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				inflated += count;
+			}
+			if (inflated != uncompressedSize) {
+				throw new UncheckedIOException(new IOException("Corrupt BGZF block, expected " + uncompressedSize + " bytes but got " + inflated));
+			}
+		}
+		catch (DataFormatException e) {
+			throw new UncheckedIOException(new IOException("Corrupt BGZF block", e));
+		}
+
+		CRC32 crc = new CRC32();
+		crc.update(uncompressed, 0, uncompressedSize);
+		if ((int) crc.getValue() != expectedCrc) {
+			throw new UncheckedIOException(new IOException("BGZF block failed its CRC check"));
+		}
+		return uncompressed;
+	}
+
+	private static int ReadInt(byte[] bytes, int offset) {
+		return (bytes[offset] & 0xff) | (bytes[offset + 1] & 0xff) << 8 | (bytes[offset + 2] & 0xff) << 16 | (bytes[offset + 3] & 0xff) << 24;
+	}
+}
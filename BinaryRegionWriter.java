@@ -0,0 +1,47 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// Big-endian record stream, readable with DataInputStream or a ByteBuffer. The file starts with
+// a magic number and a version, followed by one record per region until the end of the file:
+//
+//   int region index, short chromosome name length and the UTF-8 chromosome name,
+//   int lead position, double lead p-value, int region start, int region stop,
+//   int significant, int suggestive and total marker counts,
+//   short lead marker name length and the UTF-8 lead marker name.
+public class BinaryRegionWriter extends RegionWriter {
+
+	static final int MAGIC = 0x474a5247; // "GJRG"
+	static final int VERSION = 2;
+
+	public BinaryRegionWriter(OutputStream output, int bufferSize) throws IOException {
+		super(output, bufferSize);
+		PutInt(MAGIC);
+		PutInt(VERSION);
+	}
+
+	@Override
+	public void Write(Region region) throws IOException {
+		PutInt(region.getRegionIndex());
+		PutString(region.getChromosome());
+		PutInt(region.getPosition());
+		PutLong(Double.doubleToRawLongBits(region.getPvalue()));
+		PutInt(region.getRegionStart());
+		PutInt(region.getRegionStop());
+		PutInt(region.getNumSigMarkers());
+		PutInt(region.getNumSuggestiveMarkers());
+		PutInt(region.getNumTotalMarkers());
+
+		PutString(region.getMarkerName());
+	}
+
+	private void PutString(String text) throws IOException {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > 0xffff) {
+			throw new IOException("Name too long for the binary result format: " + text);
+		}
+		PutByte(bytes.length >>> 8);
+		PutByte(bytes.length);
+		PutBytes(bytes, 0, bytes.length);
+	}
+}
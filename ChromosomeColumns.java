@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+// All markers of one chromosome, stored column-wise. A marker is addressed by its ordinal,
+// which is its index into the columns. Once the store is sealed the ordinals are in position order.
+// The columns themselves live in a ColumnStorage, on the heap or off it.
+public class ChromosomeColumns {
+
+	final MarkerStore _store;
+	final short _code;
+	final String _chromosome;
+
+	ColumnStorage _columns;
+	int _size;
+	PositionIndex _positionIndex;
+
+	ChromosomeColumns(MarkerStore store, short code, String chromosome, ColumnStorage columns) {
+		_store = store;
+		_code = code;
+		_chromosome = chromosome;
+		_columns = columns;
+	}
+
+	void Add(int position, double pvalue, int nameOffset, int nameLength) {
+		if (_size == _columns.Capacity()) {
+			Grow(Math.max(16, _size * 2));
+		}
+		_columns.Set(_size, position, pvalue, nameOffset, nameLength);
+		_size++;
+	}
+
+	void Append(ChromosomeColumns source, int nameShift) {
+		if (_size + source._size > _columns.Capacity()) {
+			Grow(_size + source._size);
+		}
+		var from = source._columns;
+		for (int i = 0; i < source._size; i++) {
+			_columns.Set(_size + i, from.GetPosition(i), from.GetPvalue(i), from.GetNameOffset(i) + nameShift, from.GetNameLength(i));
+		}
+		_size += source._size;
+	}
+
+	// Puts the markers in position order, keeping input order for equal positions, and builds the
+	// position index used for window lookups. Markers can no longer be added afterwards.
+	void Seal() {
+		if (!IsSorted()) {
+			// Sorting position and ordinal packed into one long keeps equal positions in input order
+			long[] keys = new long[_size];
+			for (int i = 0; i < _size; i++) {
+				keys[i] = ((long) _columns.GetPosition(i) << 32) | i;
+			}
+			Arrays.sort(keys);
+
+			var sorted = _store.NewColumns(_size);
+			for (int i = 0; i < _size; i++) {
+				int ordinal = (int) keys[i];
+				sorted.Set(i, _columns.GetPosition(ordinal), _columns.GetPvalue(ordinal), _columns.GetNameOffset(ordinal), _columns.GetNameLength(ordinal));
+			}
+			_store.Recycle(_columns);
+			_columns = sorted;
+		}
+		_positionIndex = _columns.IndexPositions(_size);
+	}
+
+	// Through the store, so a batch run grows into storage another file gave back
+	private void Grow(int capacity) {
+		var grown = _store.NewColumns(capacity);
+		_columns.CopyTo(grown, _size);
+		_store.Recycle(_columns);
+		_columns = grown;
+	}
+
+	public boolean IsSorted() {
+		for (int i = 1; i < _size; i++) {
+			if (_columns.GetPosition(i - 1) > _columns.GetPosition(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	public PositionIndex GetPositionIndex() {
+		return _positionIndex;
+	}
+
+	public int Size() {
+		return _size;
+	}
+
+	public short GetCode() {
+		return _code;
+	}
+
+	public String GetChromosome() {
+		return _chromosome;
+	}
+
+	public int GetPosition(int ordinal) {
+		return _columns.GetPosition(ordinal);
+	}
+
+	public double GetPvalue(int ordinal) {
+		return _columns.GetPvalue(ordinal);
+	}
+
+	public String GetName(int ordinal) {
+		return _store.GetName(_columns.GetNameOffset(ordinal), _columns.GetNameLength(ordinal));
+	}
+
+	public Marker ToMarker(int ordinal) {
+		var marker = new Marker();
+		marker.setName(GetName(ordinal));
+		marker.setChromosome(_chromosome);
+		marker.setPosition(GetPosition(ordinal));
+		marker.setPvalue(GetPvalue(ordinal));
+		return marker;
+	}
+}
@@ -0,0 +1,187 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// The chromosomes of one dataset, discovered while it is parsed. Every distinct name gets a compact
+// code in the order it is first seen, and names are compared in natural genomic order: numbered
+// chromosomes by number, then X, Y, XY and MT, then any other contig with the digits in its name
+// compared as numbers. Names are made canonical first, so "chr1", "chr01" and "1", or "chrM" and
+// "MT", are the same chromosome.
+public class ChromosomeDictionary {
+
+	public static final int MAX_CHROMOSOMES = Short.MAX_VALUE + 1;
+
+	public static final Comparator<String> NATURAL_ORDER = ChromosomeDictionary::Compare;
+
+	// The numbers PLINK gives the chromosomes that have no number of their own
+	static final String[] NAMED_CHROMOSOMES = { "X", "Y", "XY", "MT" };
+
+	List<String> _names;
+	Map<String, Short> _codes;
+
+	public ChromosomeDictionary() {
+		_names = new ArrayList<String>();
+		_codes = new HashMap<String, Short>();
+	}
+
+	// The code of the chromosome, assigning the next free one when the name is new
+	public short CodeOf(String chromosome) {
+		var name = Canonical(chromosome);
+		var code = _codes.get(name);
+		if (code == null) {
+			if (_names.size() >= MAX_CHROMOSOMES) {
+				throw new IllegalStateException("Too many distinct chromosomes, could not assign a code to " + chromosome);
+			}
+			code = (short) _names.size();
+			_names.add(name);
+			_codes.put(name, code);
+		}
+		return code;
+	}
+
+	// The code of the chromosome, or -1 when it has not been seen
+	public int Find(String chromosome) {
+		var code = _codes.get(Canonical(chromosome));
+		return code == null ? -1 : code;
+	}
+
+	public String NameOf(int code) {
+		return _names.get(code);
+	}
+
+	public int Size() {
+		return _names.size();
+	}
+
+	// Every code, ordered by the natural order of the chromosome names
+	public int[] CodesInNaturalOrder() {
+		List<Integer> codes = new ArrayList<Integer>();
+		for (int code = 0; code < _names.size(); code++) {
+			codes.add(code);
+		}
+		codes.sort((code1, code2) -> Compare(_names.get(code1), _names.get(code2)));
+		return codes.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	// Drops a "chr" prefix and the leading zeros of a number, writes X, Y, XY and MT in upper case
+	// and turns M into MT.
+	public static String Canonical(String chromosome) {
+		var name = chromosome;
+		if (name.length() > 3 && name.regionMatches(true, 0, "chr", 0, 3)) {
+			name = name.substring(3);
+		}
+		for (String named : NAMED_CHROMOSOMES) {
+			if (name.equalsIgnoreCase(named)) {
+				return named;
+			}
+		}
+		if (name.equalsIgnoreCase("M")) {
+			return "MT";
+		}
+		if (IsNumber(name)) {
+			return StripLeadingZeros(name);
+		}
+		return name;
+	}
+
+	// 1 to 22 and so on for numbered chromosomes, 23 to 26 for X, Y, XY and MT as PLINK numbers them,
+	// and 0 for any other contig.
+	public static int NumberOf(String chromosome) {
+		var name = Canonical(chromosome);
+		if (IsNumber(name)) {
+			return name.length() > 9 ? 0 : Integer.parseInt(name);
+		}
+		for (int i = 0; i < NAMED_CHROMOSOMES.length; i++) {
+			if (name.equals(NAMED_CHROMOSOMES[i])) {
+				return 23 + i;
+			}
+		}
+		return 0;
+	}
+
+	public static int Compare(String chromosome1, String chromosome2) {
+		var name1 = Canonical(chromosome1);
+		var name2 = Canonical(chromosome2);
+		int rank = Integer.compare(Rank(name1), Rank(name2));
+		if (rank != 0) {
+			return rank;
+		}
+		return CompareNatural(name1, name2);
+	}
+
+	// Numbered chromosomes first, then the named ones in PLINK order, then everything else
+	private static int Rank(String name) {
+		if (IsNumber(name)) {
+			return 0;
+		}
+		for (int i = 0; i < NAMED_CHROMOSOMES.length; i++) {
+			if (name.equals(NAMED_CHROMOSOMES[i])) {
+				return 1 + i;
+			}
+		}
+		return 1 + NAMED_CHROMOSOMES.length;
+	}
+
+	private static boolean IsNumber(String name) {
+		if (name.isEmpty()) {
+			return false;
+		}
+		for (int i = 0; i < name.length(); i++) {
+			if (name.charAt(i) < '0' || name.charAt(i) > '9') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Compares runs of digits by their value and everything else character by character, so
+	// "contig2" sorts before "contig10".
+	private static int CompareNatural(String name1, String name2) {
+		int i = 0;
+		int j = 0;
+		while (i < name1.length() && j < name2.length()) {
+			char c1 = name1.charAt(i);
+			char c2 = name2.charAt(j);
+			if (Character.isDigit(c1) && Character.isDigit(c2)) {
+				int end1 = i;
+				int end2 = j;
+				while (end1 < name1.length() && Character.isDigit(name1.charAt(end1))) {
+					end1++;
+				}
+				while (end2 < name2.length() && Character.isDigit(name2.charAt(end2))) {
+					end2++;
+				}
+				var digits1 = StripLeadingZeros(name1.substring(i, end1));
+				var digits2 = StripLeadingZeros(name2.substring(j, end2));
+				int compared = digits1.length() != digits2.length()
+						? Integer.compare(digits1.length(), digits2.length())
+						: digits1.compareTo(digits2);
+				if (compared != 0) {
+					return compared;
+				}
+				i = end1;
+				j = end2;
+			} else {
+				int compared = Character.compare(Character.toUpperCase(c1), Character.toUpperCase(c2));
+				if (compared != 0) {
+					return compared;
+				}
+				i++;
+				j++;
+			}
+		}
+		int remaining = Integer.compare(name1.length() - i, name2.length() - j);
+		// Names that only differ in case or leading zeros still need a fixed order
+		return remaining != 0 ? remaining : name1.compareTo(name2);
+	}
+
+	private static String StripLeadingZeros(String digits) {
+		int i = 0;
+		while (i < digits.length() - 1 && digits.charAt(i) == '0') {
+			i++;
+		}
+		return digits.substring(i);
+	}
+}
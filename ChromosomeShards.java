@@ -0,0 +1,40 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+// Splits the chromosomes of a dataset over a number of shards, so separate processes, or separate
+// machines, can each analyse a part and ShardMerge can combine their results. The split depends on
+// nothing but the marker counts of the chromosomes, so every shard working on the same input
+// arrives at the same split without talking to the others. The largest chromosomes are handed out
+// first, each to the shard with the fewest markers so far, which keeps the shards close in size.
+public class ChromosomeShards {
+
+	// The chromosomes of the given shard, numbered from 1, in natural genomic order
+	public static List<ChromosomeColumns> Assigned(MarkerStore dataSet, int shard, int shardCount) {
+		if (shard < 1 || shard > shardCount) {
+			throw new IllegalArgumentException("Shard " + shard + " does not exist, expected 1 to " + shardCount);
+		}
+
+		List<ChromosomeColumns> largestFirst = dataSet.GetChromosomesInNaturalOrder();
+		largestFirst.sort(Comparator.comparingInt(ChromosomeColumns::Size).reversed()
+				.thenComparing(ChromosomeColumns::GetChromosome, ChromosomeDictionary.NATURAL_ORDER));
+
+		long[] shardSizes = new long[shardCount];
+		List<ChromosomeColumns> assigned = new ArrayList<ChromosomeColumns>();
+		for (ChromosomeColumns chromosome : largestFirst) {
+			int smallest = 0;
+			for (int i = 1; i < shardCount; i++) {
+				if (shardSizes[i] < shardSizes[smallest]) {
+					smallest = i;
+				}
+			}
+			shardSizes[smallest] += chromosome.Size();
+			if (smallest == shard - 1) {
+				assigned.add(chromosome);
+			}
+		}
+
+		assigned.sort(Comparator.comparing(ChromosomeColumns::GetChromosome, ChromosomeDictionary.NATURAL_ORDER));
+		return assigned;
+	}
+}
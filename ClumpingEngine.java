@@ -0,0 +1,8 @@
+import java.util.List;
+
+// Turns the markers of one position-sorted chromosome into its unique regions. The regions come
+// back in genomic order; the caller assigns their RegionIndex.
+public interface ClumpingEngine {
+
+	List<Region> AnalyzeChromosome(ChromosomeColumns chromosome);
+}
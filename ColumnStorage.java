@@ -0,0 +1,27 @@
+// Where the columns of a ChromosomeColumns live. HeapColumnStorage keeps them in Java arrays,
+// DirectColumnStorage in direct ByteBuffers outside the heap. ChromosomeColumns hides which one is in
+// use, so the engines read positions and p-values the same way from either.
+public interface ColumnStorage {
+
+	int Capacity();
+
+	int GetPosition(int ordinal);
+
+	double GetPvalue(int ordinal);
+
+	int GetNameOffset(int ordinal);
+
+	int GetNameLength(int ordinal);
+
+	void Set(int ordinal, int position, double pvalue, int nameOffset, int nameLength);
+
+	// Copies the first size markers into the same ordinals of target, which has room for them
+	default void CopyTo(ColumnStorage target, int size) {
+		for (int i = 0; i < size; i++) {
+			target.Set(i, GetPosition(i), GetPvalue(i), GetNameOffset(i), GetNameLength(i));
+		}
+	}
+
+	// Binary search over the first size positions, which must be sorted
+	PositionIndex IndexPositions(int size);
+}
@@ -0,0 +1,182 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+// Sealed marker stores of the input files an AnalysisServer has been asked about, least recently
+// used first out. A file is known by its absolute path, size and last modified time, so a file that
+// is rewritten is loaded again and its old store dropped. The stores are evicted once their
+// estimated size adds up to more than the memory budget; the store in use is always kept, however
+// large it is. Each store also keeps the suggestive indices built for it, one per threshold. They
+// count toward the budget as well, and once no other store is left to evict, the least recently
+// used indices of the store in use go next.
+public class DatasetCache {
+
+	final long _memoryBudget;
+	final RunOptions _loadOptions;
+	// Access ordered, the least recently used dataset comes first
+	final LinkedHashMap<String, Dataset> _datasets;
+	long _usedBytes;
+
+	public DatasetCache(long memoryBudget, RunOptions loadOptions) {
+		_memoryBudget = memoryBudget;
+		_loadOptions = loadOptions;
+		_datasets = new LinkedHashMap<String, Dataset>(16, 0.75f, true);
+	}
+
+	// The dataset of the input file, loading it unless an up to date one is cached. Requests for a
+	// file that is still loading wait for that load instead of starting their own.
+	public Dataset Get(Path input) throws IOException {
+		Path path = input.toAbsolutePath().normalize();
+		String key = path + "\t" + Files.size(path) + "\t" + Files.getLastModifiedTime(path).toMillis();
+
+		Dataset dataset;
+		synchronized (this) {
+			dataset = _datasets.computeIfAbsent(key, x -> new Dataset(key, path));
+		}
+		try {
+			dataset.Load(_loadOptions);
+		}
+		catch (IOException | RuntimeException e) {
+			synchronized (this) {
+				_datasets.remove(key, dataset);
+			}
+			throw e;
+		}
+
+		synchronized (this) {
+			if (!dataset._counted && _datasets.get(key) == dataset) {
+				dataset._counted = true;
+				_usedBytes += dataset._bytes;
+				Evict(dataset, null);
+			}
+		}
+		return dataset;
+	}
+
+	// The suggestive index of a dataset Get returned, for the threshold. A new index is built over
+	// every chromosome outside the lock, so its size is known when it is counted; two requests that
+	// ask for the same new threshold at once may both build it, and the second one is dropped.
+	public SuggestiveMarkerIndex GetSuggestiveIndex(Dataset dataset, double suggestivePvalueThreshold) {
+		synchronized (this) {
+			var index = dataset._suggestiveIndices.get(suggestivePvalueThreshold);
+			if (index != null) {
+				return index;
+			}
+		}
+		var built = new SuggestiveMarkerIndex(suggestivePvalueThreshold);
+		built.Build(dataset._store);
+		synchronized (this) {
+			var index = dataset._suggestiveIndices.get(suggestivePvalueThreshold);
+			if (index != null) {
+				return index;
+			}
+			// An evicted dataset is only finishing its current requests, so its index is not kept
+			if (dataset._counted && _datasets.get(dataset._key) == dataset) {
+				dataset._suggestiveIndices.put(suggestivePvalueThreshold, built);
+				long bytes = built.EstimatedBytes();
+				dataset._bytes += bytes;
+				_usedBytes += bytes;
+				Evict(dataset, built);
+			}
+			return built;
+		}
+	}
+
+	public synchronized long UsedBytes() {
+		return _usedBytes;
+	}
+
+	// Most recently used last
+	public synchronized List<Dataset> GetDatasets() {
+		return new ArrayList<Dataset>(_datasets.values());
+	}
+
+	// Drops older versions of the same file, then the least recently used datasets until the rest
+	// fit the budget, and then the least recently used suggestive indices of the dataset kept
+	private void Evict(Dataset keep, SuggestiveMarkerIndex keepIndex) {
+		Iterator<Dataset> datasets = _datasets.values().iterator();
+		while (datasets.hasNext()) {
+			var dataset = datasets.next();
+			if (dataset != keep && dataset._path.equals(keep._path)) {
+				Remove(datasets, dataset);
+			}
+		}
+		datasets = _datasets.values().iterator();
+		while (_usedBytes > _memoryBudget && datasets.hasNext()) {
+			var dataset = datasets.next();
+			if (dataset != keep) {
+				Remove(datasets, dataset);
+			}
+		}
+		Iterator<SuggestiveMarkerIndex> indices = keep._suggestiveIndices.values().iterator();
+		while (_usedBytes > _memoryBudget && indices.hasNext()) {
+			var index = indices.next();
+			if (index != keepIndex) {
+				indices.remove();
+				long bytes = index.EstimatedBytes();
+				keep._bytes -= bytes;
+				_usedBytes -= bytes;
+				Diagnostics.Print("Evicted the suggestive index for " + index.GetSuggestivePvalueThreshold() + " of " + keep._path);
+			}
+		}
+	}
+
+	private void Remove(Iterator<Dataset> datasets, Dataset dataset) {
+		datasets.remove();
+		if (dataset._counted) {
+			_usedBytes -= dataset._bytes;
+		}
+		Diagnostics.Print("Evicted " + dataset._path + " from the dataset cache");
+	}
+
+	public static class Dataset {
+
+		final String _key;
+		final Path _path;
+		// Access ordered like the datasets, and guarded by the cache
+		final LinkedHashMap<Double, SuggestiveMarkerIndex> _suggestiveIndices;
+		MarkerStore _store;
+		// The store and its suggestive indices. Changed by the cache only, once the dataset is loaded.
+		long _bytes;
+		boolean _counted;
+
+		Dataset(String key, Path path) {
+			_key = key;
+			_path = path;
+			_suggestiveIndices = new LinkedHashMap<Double, SuggestiveMarkerIndex>(4, 0.75f, true);
+		}
+
+		// Loads through an analyzer, so the usual loader and marker cache sidecar are used
+		synchronized void Load(RunOptions options) throws IOException {
+			if (_store != null) {
+				return;
+			}
+			var loader = new RecursiveGeneAnalyzer(0, 0, _path.toString(), 0, null);
+			loader.setParallelism(options.Threads);
+			loader.setUseCache(options.Cache);
+			loader.setOffHeap(options.OffHeap);
+			loader.UploadDataset();
+			if (loader.getDataSet() == null) {
+				throw new IOException("Could not load " + _path);
+			}
+			_store = loader.getDataSet();
+			_bytes = _store.EstimatedBytes();
+		}
+
+		public Path GetPath() {
+			return _path;
+		}
+
+		public MarkerStore GetStore() {
+			return _store;
+		}
+
+		public long GetEstimatedBytes() {
+			return _bytes;
+		}
+	}
+}
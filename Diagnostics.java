@@ -0,0 +1,21 @@
+// Switch for the progress and diagnostic lines the analyzers print. Hot paths check IsEnabled
+// before building a message, so with diagnostics off a run spends nothing on them, not even the
+// string concatenation. Results and errors are reported either way.
+public class Diagnostics {
+
+	private static volatile boolean _enabled = true;
+
+	public static void setEnabled(boolean enabled) {
+		_enabled = enabled;
+	}
+
+	public static boolean IsEnabled() {
+		return _enabled;
+	}
+
+	public static void Print(String message) {
+		if (_enabled) {
+			System.out.println(message);
+		}
+	}
+}
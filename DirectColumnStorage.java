@@ -0,0 +1,87 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+
+// Columns in direct ByteBuffers, outside the Java heap. The garbage collector sees four small
+// buffer objects per chromosome however many markers it holds, so heap size and GC pauses stay
+// flat as the input grows. The buffers count against -XX:MaxDirectMemorySize, which defaults to
+// the maximum heap size. A column holds at most 2 GB, so a chromosome at most 268 million markers.
+public class DirectColumnStorage implements ColumnStorage {
+
+	final IntBuffer _positions;
+	final DoubleBuffer _pvalues;
+	final IntBuffer _nameOffsets;
+	final IntBuffer _nameLengths;
+
+	public DirectColumnStorage(int capacity) {
+		this(Allocate(capacity, 4), Allocate(capacity, 8), Allocate(capacity, 4), Allocate(capacity, 4));
+	}
+
+	// Wraps existing buffers, in whatever byte order they are set to, for example slices of a
+	// memory-mapped marker cache.
+	DirectColumnStorage(ByteBuffer positions, ByteBuffer pvalues, ByteBuffer nameOffsets, ByteBuffer nameLengths) {
+		_positions = positions.asIntBuffer();
+		_pvalues = pvalues.asDoubleBuffer();
+		_nameOffsets = nameOffsets.asIntBuffer();
+		_nameLengths = nameLengths.asIntBuffer();
+	}
+
+	@Override
+	public int Capacity() {
+		return _positions.capacity();
+	}
+
+	@Override
+	public int GetPosition(int ordinal) {
+		return _positions.get(ordinal);
+	}
+
+	@Override
+	public double GetPvalue(int ordinal) {
+		return _pvalues.get(ordinal);
+	}
+
+	@Override
+	public int GetNameOffset(int ordinal) {
+		return _nameOffsets.get(ordinal);
+	}
+
+	@Override
+	public int GetNameLength(int ordinal) {
+		return _nameLengths.get(ordinal);
+	}
+
+	@Override
+	public void Set(int ordinal, int position, double pvalue, int nameOffset, int nameLength) {
+		_positions.put(ordinal, position);
+		_pvalues.put(ordinal, pvalue);
+		_nameOffsets.put(ordinal, nameOffset);
+		_nameLengths.put(ordinal, nameLength);
+	}
+
+	@Override
+	public void CopyTo(ColumnStorage target, int size) {
+		if (!(target instanceof DirectColumnStorage)) {
+			ColumnStorage.super.CopyTo(target, size);
+			return;
+		}
+		var direct = (DirectColumnStorage) target;
+		direct._positions.put(0, _positions, 0, size);
+		direct._pvalues.put(0, _pvalues, 0, size);
+		direct._nameOffsets.put(0, _nameOffsets, 0, size);
+		direct._nameLengths.put(0, _nameLengths, 0, size);
+	}
+
+	@Override
+	public PositionIndex IndexPositions(int size) {
+		return new PositionIndex(_positions, size);
+	}
+
+	private static ByteBuffer Allocate(int capacity, int bytesPerValue) {
+		if ((long) capacity * bytesPerValue > Integer.MAX_VALUE) {
+			throw new IllegalStateException("Too many markers on one chromosome for off-heap storage: " + capacity);
+		}
+		return ByteBuffer.allocateDirect(capacity * bytesPerValue).order(ByteOrder.nativeOrder());
+	}
+}
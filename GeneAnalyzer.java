@@ -1,18 +1,12 @@
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.Comparator;
 
 
@@ -25,6 +19,8 @@ public class GeneAnalyzer {
     String _outputFileLocation;
 
     List<Region> _resultSet;
+    RegionIntervalMap _regionIntervals;
+    Set<Marker> _leadMarkers;
 
     public GeneAnalyzer(double indexPvalueThreshold, double suggestivePvalueThreshold, String inputFileLocation, int searchSpace, String outputFileLocation) {
         _indexPvalueThreshold = indexPvalueThreshold;
@@ -34,38 +30,34 @@ public class GeneAnalyzer {
         _outputFileLocation = outputFileLocation;
         
         _resultSet = new ArrayList<Region>();
+        _regionIntervals = new RegionIntervalMap();
+        // By identity, as the original compared lead marker names with ==. Markers that merely share a
+        // name, such as duplicate rsIDs or "." on different chromosomes, do not suppress each other.
+        _leadMarkers = Collections.newSetFromMap(new IdentityHashMap<Marker, Boolean>());
     }
 
     public List<Region> GetMyRegions() {
     	
-    	List<String> dataset = null;
-    	try (Stream<String> lines = Files.lines(_inputFileLocation)) 
+    	MarkerStore markers = null;
+    	try
     	{
     		System.out.println("Found file and loading...");
-    		dataset  = lines.collect(Collectors.toList());
+    		markers = MarkerLoader.Load(_inputFileLocation, Runtime.getRuntime().availableProcessors());
     	} 
     	catch (Exception e) {
     		System.out.println(e);
     	}
     	
-    	dataset.remove(0); 
- 
-    	
-    	var markers = TransformInputFileToListOfObjects(dataset);
-    	
-    	//Split everything up by chromosome
-    	List<List<Marker>> chromosomeSets = markers.stream()
-                .collect(Collectors.groupingBy(Marker :: getChromosome)) 
-                .entrySet()
-                .stream()
-                .map(Map.Entry::getValue)
+    	//Split everything up by chromosome. The store is left unsealed so the markers keep their input order.
+    	List<List<Marker>> chromosomeSets = markers.GetChromosomes().stream()
+                .map(GeneAnalyzer::ToMarkers)
                 .collect(Collectors.toList());
     	
     	Comparator<List<Marker>> comparator = (list1, list2) -> {
     	       
-    		    var chrom1 = Integer.valueOf(list1.get(0).Chromosome);
-    		    var chrom2 = Integer.valueOf(list2.get(0).Chromosome);
-    		    return chrom1.compareTo(chrom2);     
+    		    var chrom1 = list1.get(0).Chromosome;
+    		    var chrom2 = list2.get(0).Chromosome;
+    		    return ChromosomeDictionary.Compare(chrom1, chrom2);     
     	};
     	
     	chromosomeSets.sort(comparator);
@@ -87,6 +79,9 @@ public class GeneAnalyzer {
             	throw new ArithmeticException("Not in genomic order");
             }
             
+            var positionIndex = PositionIndex.Of(workingChromosome);
+            // Reset for every region of the chromosome rather than allocated for each
+            var statistics = new RegionStatistics(_indexPvalueThreshold, _suggestivePvalueThreshold);
             var stepOneCandidates = GetRecordsExceedingIndexThreshold(workingChromosome);
             
             if (stepOneCandidates.size() == 0)
@@ -99,7 +94,7 @@ public class GeneAnalyzer {
             	// We will then search 500,000 base pairs in both directions 
                 // We can now begin defining a region. Expand the search +/- 500k (position) 
             	for(Marker candidate : stepOneCandidates) {
-            		var stepTwoCandidates = GetExpandedSearchSpace(workingChromosome, candidate.getPosition());
+            		var stepTwoCandidates = GetExpandedSearchSpace(workingChromosome, positionIndex, candidate.getPosition());
             	
             		// We can now build our regions and add them to the result set.
                     var regionCandidates = GetRecordsExceedingSuggestiveThreshold(stepTwoCandidates);
@@ -108,16 +103,19 @@ public class GeneAnalyzer {
                     		
                     		// Then we will extend the window for another 500,000 base pairs beyond that and continue searching.
                             // First, define the region by expanding the search results +/- 500k again
-                            var expandedResults = GetExpandedSearchSpace(workingChromosome, regionCandidate.getPosition());
+                            var expandedResults = GetExpandedSearchSpace(workingChromosome, positionIndex, regionCandidate.getPosition());
                             
                             // We will define the start and stop positions of the region as the positions of the first and last marker
                             // in the region that meet the SUGGESTIVE THRESHOLD.
-                            var newRegion = BuildRegion(_resultSet, expandedResults, regionCandidate);
+                            var newRegion = BuildRegion(_resultSet, expandedResults, regionCandidate, statistics);
+                            var leadMarker = expandedResults.get(statistics.GetLeadOrdinal());
                 
-                            if (IsNewMarker(newRegion.MarkerName) && !OverlapsWithPreviousRegion(newRegion))
+                            if (IsNewMarker(leadMarker) && !OverlapsWithPreviousRegion(newRegion))
                             {
                                 newRegion.setRegionIndex(_resultSet.size() + 1);
                                 _resultSet.add(newRegion);
+                                _regionIntervals.Insert(newRegion);
+                                _leadMarkers.add(leadMarker);
                             }
                             else {
                             	FixUpRegion(newRegion, expandedResults);
@@ -142,25 +140,16 @@ public class GeneAnalyzer {
     }
     
     private void FixUpRegion(Region newRegion, List<Marker> chromosomeSet) {
-    	 List<Region> regionsNeedingFixup = _resultSet.stream().filter(x -> (newRegion.RegionStart - x.RegionStart) < _searchSpace &&
-                 (newRegion.RegionStart - x.RegionStart) >= 0 &&
-                 x.Chr == newRegion.Chr).collect(Collectors.toList());
+    	 // The first region on the same chromosome starting less than a search space before the new one
+    	 Region regionNeedingFixup = _regionIntervals.FirstStartingBetween(newRegion.Chromosome, 
+    			 newRegion.RegionStart - _searchSpace + 1, newRegion.RegionStart);
 
-			if (regionsNeedingFixup.size() == 0)
+			if (regionNeedingFixup == null)
 			{
 			return;
 			}
 			
-			Region regionNeedingFixup = regionsNeedingFixup.get(0);
-			
-			if (regionNeedingFixup.RegionStart > newRegion.RegionStart)
-			{
-			regionNeedingFixup.RegionStart = newRegion.RegionStart;
-			}
-			if (regionNeedingFixup.RegionStop < newRegion.RegionStop)
-			{
-			regionNeedingFixup.RegionStop = newRegion.RegionStop;
-			}
+			_regionIntervals.Merge(regionNeedingFixup, newRegion.RegionStart, newRegion.RegionStop);
 			
 			var region = chromosomeSet.stream().filter(x -> x.Pvalue < _suggestivePvalueThreshold).collect(Collectors.toList());
 			
@@ -178,14 +167,9 @@ public class GeneAnalyzer {
 		
 	}
 
-	private boolean IsNewMarker(String newRegionMarkerName)
+	private boolean IsNewMarker(Marker leadMarker)
     {
-        if (_resultSet.stream().filter(x -> x.MarkerName == newRegionMarkerName).collect(Collectors.toList()).size() > 0)
-        {
-            return false;
-        }
-
-        return true;
+        return !_leadMarkers.contains(leadMarker);
     }
 
     
@@ -198,7 +182,7 @@ public class GeneAnalyzer {
         
         var index = _resultSet.size();
         var previousRegion = _resultSet.get(index - 1);
-        if ((newRegion.RegionStart - previousRegion.getRegionStart() < 500000) 
+        if ((newRegion.RegionStart - previousRegion.getRegionStart() < _searchSpace) 
         		&& (newRegion.RegionStart - previousRegion.RegionStart > 0))
         {
             return true;
@@ -207,87 +191,27 @@ public class GeneAnalyzer {
     }
     
     private void BuildResultFile(String fileLocation)throws IOException {
-    	File fout = new File(fileLocation);
-    	FileOutputStream fos = new FileOutputStream(fout);
-     
-    	BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos));
-     
-    	var header = new String[] { "Region", "MarkerName", "Chr", "Position", "P-value", "RegionStart",
-                "RegionStop", "NumSigMarkers", "NumSuggestiveMarkers",  "NumTotalMarkers", "SizeOfRegion" };
-    	
-    	bw.write(String.join("\t", header));
-    	bw.newLine();
-    	
-        for(Region result : _resultSet)
-        {
-            var arrayResult = new String[]
-            {
-                String.valueOf(result.getRegionIndex()),
-                result.getMarkerName(),
-                String.valueOf(result.getChr()),
-                String.valueOf(result.getPosition()),
-                String.valueOf(result.getPvalue()),
-                String.valueOf(result.getRegionStart()),
-                String.valueOf(result.getRegionStop()),
-                String.valueOf(result.getNumSigMarkers()),
-                String.valueOf(result.getNumSuggestiveMarkers()),
-                String.valueOf(result.getNumTotalMarkers()),
-                String.valueOf(result.getSizeOfRegion()),
-            };
-            
-            bw.write(String.join("\t", arrayResult));
-            bw.newLine();
-        }
-     
-    	bw.close();
+    	try (RegionWriter writer = ResultFormat.TSV.Open(Paths.get(fileLocation), RegionWriter.DEFAULT_BUFFER_SIZE)) {
+    		writer.WriteAll(_resultSet);
+    	}
     }
 
 
 
-	private Region BuildRegion( List<Region> resultSet, List<Marker> chromosomeSet, Marker regionCandidate) {
+	private Region BuildRegion( List<Region> resultSet, List<Marker> chromosomeSet, Marker regionCandidate, RegionStatistics statistics) {
 		
     	// We will define the start and stop positions of the region as the positions of the first and last marker
-        // in the region that meet the SUGGESTIVE THRESHOLD. 
-    	var region = chromosomeSet.stream().filter(x -> x.getPvalue() < _suggestivePvalueThreshold)
-    			.collect(Collectors.toList());
-    	
-    	Collections.sort(region, new Comparator<Marker>(){
-    	     public int compare(Marker o1, Marker o2){
-    	         if(o1.Pvalue == o2.Pvalue)
-    	             return 0;
-    	         return o1.Pvalue < o2.Pvalue ? -1 : 1;
-    	     }
-    	});
-    	
-    	var newRegion = new Region();
-    	newRegion.setChr(Integer.parseInt(region.get(0).getChromosome()));
-    	newRegion.setMarkerName(region.get(0).getName());
-    	newRegion.setPosition(region.get(0).getPosition());
-    	newRegion.setPvalue(region.get(0).getPvalue());
-    	
-       	Collections.sort(region, new Comparator<Marker>(){
-   	     public int compare(Marker o1, Marker o2){
-   	         if(o1.Position == o2.Position)
-   	             return 0;
-   	         return o1.Position < o2.Position ? -1 : 1;
-   	     }
-       	});
-       	
-       	
-       	newRegion.setRegionStart(region.get(0).Position);
-       	newRegion.setRegionStop(region.get(region.size() - 1).Position);
-       	newRegion.setNumSigMarkers(region.stream()
-       								.filter(p -> p.getPvalue() <= _indexPvalueThreshold)
-       								.collect(Collectors.toList()).size());
-       	newRegion.setNumSuggestiveMarkers(region.stream()
-       								.filter(p -> p.getPvalue() <= _suggestivePvalueThreshold)
-       								.collect(Collectors.toList()).size());
-       	
-    	newRegion.setNumTotalMarkers(region.size());
-
-    	newRegion.setSizeOfRegion();
+        // in the region that meet the SUGGESTIVE THRESHOLD. The window is in genomic order, so one pass over
+        // its suggestive markers gives the lead marker, start, stop and counts without sorting.
+		statistics.Reset();
+		for(int i = 0; i < chromosomeSet.size(); i++) {
+			var marker = chromosomeSet.get(i);
+			if(marker.getPvalue() < _suggestivePvalueThreshold) {
+				statistics.Add(i, marker.getPosition(), marker.getPvalue());
+			}
+		}
     	
-		return newRegion;
+		return statistics.ToRegion(chromosomeSet.get(statistics.GetLeadOrdinal()));
 	}
 
 	private List<Marker> GetRecordsExceedingSuggestiveThreshold(List<Marker> workingSet) {
@@ -304,13 +228,12 @@ public class GeneAnalyzer {
         return results;
 	}
 
-	private List<Marker> GetExpandedSearchSpace(List<Marker> workingChromosome, int position) {
+	private List<Marker> GetExpandedSearchSpace(List<Marker> workingChromosome, PositionIndex positionIndex, int position) {
     	var startingPosition = position - _searchSpace;
         var endingPosition = position + _searchSpace;
-        var stepTwoCandidates = workingChromosome.stream()
-        	    .filter(p -> p.getPosition() >= startingPosition && 
-        	    		p.getPosition() <= endingPosition)
-        	    .collect(Collectors.toList());  // On that chromosome.
+        // The chromosome is in genomic order, so the window is a view onto it rather than a copy
+        var window = positionIndex.Between(startingPosition, endingPosition);
+        var stepTwoCandidates = workingChromosome.subList(window.From(), window.To());  // On that chromosome.
 
         return stepTwoCandidates;
 	}
@@ -348,33 +271,11 @@ public class GeneAnalyzer {
         return true;
     }
 
-	private List<Marker> TransformInputFileToListOfObjects(List<String> dataset) {
-		List<Marker> filedata = new ArrayList<Marker>();
-		for(String line : dataset) {
-			var wordsArray = line.split("\t");
-			
-			var record = new Marker();
-            record.Name = wordsArray[0];
-            record.Chromosome = wordsArray[1];
-            record.Position = Integer.parseInt(wordsArray[2]);
-            
-            try {
-                /* We suspect that this block of statement can throw 
-                 * exception when p-value is NA
-                 */
-                Integer.parseInt(record.Chromosome);
-            	record.setPvalue(Double.parseDouble(wordsArray[wordsArray.length-1]));
-                filedata.add(record);
-
-             }
-             catch (NumberFormatException e) { 
-                System.out.println("Could not parse pvalue for " + wordsArray[3]);
-             }
+	private static List<Marker> ToMarkers(ChromosomeColumns chromosome) {
+		List<Marker> markers = new ArrayList<Marker>(chromosome.Size());
+		for(int i = 0; i < chromosome.Size(); i++) {
+			markers.add(chromosome.ToMarker(i));
 		}
-		
-    	var cleaned = filedata.stream().filter(x -> !x.Chromosome.isEmpty()).toArray(Marker[]::new);
-    	var noBlanks = Arrays.asList(cleaned);
-    	
-		return noBlanks; 
+		return markers;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+// Columns as plain Java arrays.
+public class HeapColumnStorage implements ColumnStorage {
+
+	final int[] _positions;
+	final double[] _pvalues;
+	final int[] _nameOffsets;
+	final int[] _nameLengths;
+
+	public HeapColumnStorage(int capacity) {
+		this(new int[capacity], new double[capacity], new int[capacity], new int[capacity]);
+	}
+
+	HeapColumnStorage(int[] positions, double[] pvalues, int[] nameOffsets, int[] nameLengths) {
+		_positions = positions;
+		_pvalues = pvalues;
+		_nameOffsets = nameOffsets;
+		_nameLengths = nameLengths;
+	}
+
+	@Override
+	public int Capacity() {
+		return _positions.length;
+	}
+
+	@Override
+	public int GetPosition(int ordinal) {
+		return _positions[ordinal];
+	}
+
+	@Override
+	public double GetPvalue(int ordinal) {
+		return _pvalues[ordinal];
+	}
+
+	@Override
+	public int GetNameOffset(int ordinal) {
+		return _nameOffsets[ordinal];
+	}
+
+	@Override
+	public int GetNameLength(int ordinal) {
+		return _nameLengths[ordinal];
+	}
+
+	@Override
+	public void Set(int ordinal, int position, double pvalue, int nameOffset, int nameLength) {
+		_positions[ordinal] = position;
+		_pvalues[ordinal] = pvalue;
+		_nameOffsets[ordinal] = nameOffset;
+		_nameLengths[ordinal] = nameLength;
+	}
+
+	@Override
+	public void CopyTo(ColumnStorage target, int size) {
+		if (!(target instanceof HeapColumnStorage)) {
+			ColumnStorage.super.CopyTo(target, size);
+			return;
+		}
+		var heap = (HeapColumnStorage) target;
+		System.arraycopy(_positions, 0, heap._positions, 0, size);
+		System.arraycopy(_pvalues, 0, heap._pvalues, 0, size);
+		System.arraycopy(_nameOffsets, 0, heap._nameOffsets, 0, size);
+		System.arraycopy(_nameLengths, 0, heap._nameLengths, 0, size);
+	}
+
+	@Override
+	public PositionIndex IndexPositions(int size) {
+		return new PositionIndex(_positions, size);
+	}
+}
@@ -0,0 +1,96 @@
+// Binary min-heap of index markers from any number of chromosomes, ordered by p-value. Ties go to
+// the chromosome that comes first, then to the lower ordinal, so the order is the same on every run.
+// Markers are kept in parallel primitive arrays. Filling the heap and calling Heapify costs O(n),
+// each Poll O(log n), so taking the first k markers costs O(n + k log n) instead of a full sort.
+public class IndexMarkerHeap {
+
+	double[] _pvalues;
+	int[] _chromosomes;
+	int[] _ordinals;
+	int _size;
+
+	public IndexMarkerHeap(int capacity) {
+		_pvalues = new double[capacity];
+		_chromosomes = new int[capacity];
+		_ordinals = new int[capacity];
+	}
+
+	// Adds a marker without restoring the heap order, call Heapify once all are added
+	public void Add(int chromosome, int ordinal, double pvalue) {
+		_pvalues[_size] = pvalue;
+		_chromosomes[_size] = chromosome;
+		_ordinals[_size] = ordinal;
+		_size++;
+	}
+
+	public void Heapify() {
+		for (int i = _size / 2 - 1; i >= 0; i--) {
+			SiftDown(i);
+		}
+	}
+
+	public boolean IsEmpty() {
+		return _size == 0;
+	}
+
+	public int PeekChromosome() {
+		return _chromosomes[0];
+	}
+
+	public int PeekOrdinal() {
+		return _ordinals[0];
+	}
+
+	// Removes the most significant marker
+	public void Poll() {
+		_size--;
+		Move(_size, 0);
+		SiftDown(0);
+	}
+
+	private void SiftDown(int i) {
+		while (true) {
+			int smallest = i;
+			int left = 2 * i + 1;
+			int right = left + 1;
+			if (left < _size && Before(left, smallest)) {
+				smallest = left;
+			}
+			if (right < _size && Before(right, smallest)) {
+				smallest = right;
+			}
+			if (smallest == i) {
+				return;
+			}
+			Swap(i, smallest);
+			i = smallest;
+		}
+	}
+
+	private boolean Before(int i, int j) {
+		int byPvalue = Double.compare(_pvalues[i], _pvalues[j]);
+		if (byPvalue != 0) {
+			return byPvalue < 0;
+		}
+		if (_chromosomes[i] != _chromosomes[j]) {
+			return _chromosomes[i] < _chromosomes[j];
+		}
+		return _ordinals[i] < _ordinals[j];
+	}
+
+	private void Move(int from, int to) {
+		_pvalues[to] = _pvalues[from];
+		_chromosomes[to] = _chromosomes[from];
+		_ordinals[to] = _ordinals[from];
+	}
+
+	private void Swap(int i, int j) {
+		double pvalue = _pvalues[i];
+		int chromosome = _chromosomes[i];
+		int ordinal = _ordinals[i];
+		Move(j, i);
+		_pvalues[j] = pvalue;
+		_chromosomes[j] = chromosome;
+		_ordinals[j] = ordinal;
+	}
+}
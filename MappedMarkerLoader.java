@@ -0,0 +1,130 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Loads a large uncompressed marker file by memory mapping it, cutting it into chunks at line
+// boundaries and parsing the chunks in parallel, each into its own MarkerStore. The partial stores
+// are then appended in file order, so the result is the same as reading the file from start to end.
+// The partial stores are always on the heap, only the combined store is off-heap when asked for.
+public class MappedMarkerLoader {
+
+	static final long MIN_CHUNK_SIZE = 8L << 20;
+	static final long MAX_CHUNK_SIZE = Integer.MAX_VALUE - 8;
+
+	public static MarkerStore Load(Path path, int parallelism) throws IOException {
+		return Load(path, parallelism, false);
+	}
+
+	public static MarkerStore Load(Path path, int parallelism, boolean offHeap) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			List<long[]> chunks = SplitAtLineBoundaries(channel, parallelism);
+
+			ForkJoinPool pool = new ForkJoinPool(parallelism);
+			try {
+				List<ForkJoinTask<MarkerStore>> partialStores = new ArrayList<ForkJoinTask<MarkerStore>>();
+				for (int i = 0; i < chunks.size(); i++) {
+					long[] chunk = chunks.get(i);
+					boolean skipHeader = i == 0;
+					partialStores.add(pool.submit(() -> ParseChunk(channel, chunk[0], chunk[1], skipHeader)));
+				}
+
+				var store = new MarkerStore(offHeap);
+				for (ForkJoinTask<MarkerStore> partialStore : partialStores) {
+					store.Append(partialStore.join());
+				}
+				return store;
+			}
+			finally {
+				pool.shutdown();
+			}
+		}
+	}
+
+	private static MarkerStore ParseChunk(FileChannel channel, long start, long end, boolean skipHeader) {
+		try {
+			MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+			var store = new MarkerStore();
+			new MarkerFileReader(store, MarkerFileReader.DEFAULT_BUFFER_SIZE, skipHeader).Read(new ByteBufferInputStream(mapped));
+			return store;
+		}
+		catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	// Chunks of roughly equal size, as {start, end} offsets, each ending just after a newline
+	private static List<long[]> SplitAtLineBoundaries(FileChannel channel, int parallelism) throws IOException {
+		long size = channel.size();
+		long chunkSize = Math.min(MAX_CHUNK_SIZE, Math.max(MIN_CHUNK_SIZE, size / (parallelism * 4L) + 1));
+
+		List<long[]> chunks = new ArrayList<long[]>();
+		ByteBuffer probe = ByteBuffer.allocate(64 * 1024);
+		long start = 0;
+		while (start < size) {
+			long end = start + chunkSize;
+			if (end >= size) {
+				end = size;
+			}
+			else {
+				end = NextLineStart(channel, probe, end, size);
+				if (end - start > MAX_CHUNK_SIZE) {
+					throw new IOException("Line too long near offset " + start + " in " + channel);
+				}
+			}
+			chunks.add(new long[] { start, end });
+			start = end;
+		}
+		return chunks;
+	}
+
+	private static long NextLineStart(FileChannel channel, ByteBuffer probe, long from, long size) throws IOException {
+		long position = from;
+		while (position < size) {
+			probe.clear();
+			int read = channel.read(probe, position);
+			if (read <= 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (probe.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	static class ByteBufferInputStream extends InputStream {
+
+		final ByteBuffer _buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			_buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return _buffer.hasRemaining() ? _buffer.get() & 0xff : -1;
+		}
+
+		@Override
+		public int read(byte[] target, int offset, int length) {
+			if (!_buffer.hasRemaining()) {
+				return -1;
+			}
+			int count = Math.min(length, _buffer.remaining());
+			_buffer.get(target, offset, count);
+			return count;
+		}
+	}
+}
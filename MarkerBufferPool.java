@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Column storage, name arenas and read buffers left over from inputs that are done, handed to the
+// next input instead of being allocated and grown again for every file of a batch. Only stores
+// created with the pool give their storage back to it. The pool keeps at most its byte budget,
+// dropping the smallest pieces first, since the large ones are the expensive ones to grow again.
+// All methods are safe to call from several loading threads at once.
+public class MarkerBufferPool {
+
+	static final int INITIAL_CAPACITY = 1024;
+
+	final boolean _offHeap;
+	final long _budget;
+	final List<ColumnStorage> _columns;
+	final List<NameArena> _names;
+	final List<byte[]> _readBuffers;
+	long _pooledBytes;
+
+	public MarkerBufferPool(boolean offHeap, long budget) {
+		_offHeap = offHeap;
+		_budget = budget;
+		_columns = new ArrayList<ColumnStorage>();
+		_names = new ArrayList<NameArena>();
+		_readBuffers = new ArrayList<byte[]>();
+	}
+
+	public boolean IsOffHeap() {
+		return _offHeap;
+	}
+
+	// The smallest pooled storage that holds at least the given number of markers, otherwise a new
+	// one, so a small chromosome does not take the room a large one will need
+	public synchronized ColumnStorage AcquireColumns(int minimumCapacity) {
+		int best = -1;
+		for (int i = 0; i < _columns.size(); i++) {
+			int capacity = _columns.get(i).Capacity();
+			if (capacity >= minimumCapacity && (best < 0 || capacity < _columns.get(best).Capacity())) {
+				best = i;
+			}
+		}
+		if (best >= 0) {
+			var columns = _columns.remove(best);
+			_pooledBytes -= BytesOf(columns);
+			return columns;
+		}
+		int capacity = Math.max(INITIAL_CAPACITY, minimumCapacity);
+		return _offHeap ? new DirectColumnStorage(capacity) : new HeapColumnStorage(capacity);
+	}
+
+	// An empty arena, reusing the room of a pooled one if there is one
+	public synchronized NameArena AcquireNames() {
+		if (_names.isEmpty()) {
+			return _offHeap ? NameArena.OffHeap() : NameArena.OnHeap();
+		}
+		var names = _names.remove(_names.size() - 1);
+		_pooledBytes -= names.Capacity();
+		names._size = 0;
+		return names;
+	}
+
+	public synchronized byte[] AcquireReadBuffer(int size) {
+		for (int i = 0; i < _readBuffers.size(); i++) {
+			if (_readBuffers.get(i).length >= size) {
+				_pooledBytes -= _readBuffers.get(i).length;
+				return _readBuffers.remove(i);
+			}
+		}
+		return new byte[size];
+	}
+
+	public synchronized void ReleaseColumns(ColumnStorage columns) {
+		_columns.add(columns);
+		_pooledBytes += BytesOf(columns);
+		Trim();
+	}
+
+	public synchronized void ReleaseReadBuffer(byte[] buffer) {
+		_readBuffers.add(buffer);
+		_pooledBytes += buffer.length;
+		Trim();
+	}
+
+	// Takes back the storage of a store that is no longer used. The store must not be read afterwards.
+	public synchronized void Release(MarkerStore store) {
+		if (store == null || store._pool != this) {
+			return;
+		}
+		for (ChromosomeColumns chromosome : store._chromosomes) {
+			_columns.add(chromosome._columns);
+			_pooledBytes += BytesOf(chromosome._columns);
+			chromosome._columns = null;
+		}
+		_names.add(store._names);
+		_pooledBytes += store._names.Capacity();
+		store._names = null;
+		Trim();
+	}
+
+	public synchronized long PooledBytes() {
+		return _pooledBytes;
+	}
+
+	// Drops the smallest column storage, or failing that any arena or buffer, until the pool fits its budget
+	private void Trim() {
+		while (_pooledBytes > _budget) {
+			if (!_columns.isEmpty()) {
+				int smallest = 0;
+				for (int i = 1; i < _columns.size(); i++) {
+					if (_columns.get(i).Capacity() < _columns.get(smallest).Capacity()) {
+						smallest = i;
+					}
+				}
+				_pooledBytes -= BytesOf(_columns.remove(smallest));
+			}
+			else if (!_names.isEmpty()) {
+				_pooledBytes -= _names.remove(_names.size() - 1).Capacity();
+			}
+			else {
+				_pooledBytes -= _readBuffers.remove(_readBuffers.size() - 1).length;
+			}
+		}
+	}
+
+	// A position, a p-value, a name offset and a name length per marker
+	private static long BytesOf(ColumnStorage columns) {
+		return columns.Capacity() * 20L;
+	}
+}
@@ -0,0 +1,253 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+// Reads a tab separated marker file straight into a MarkerStore, or any other MarkerSink. The input is consumed one buffer
+// at a time and every field is parsed from the raw bytes, so no String is created per line and the
+// raw text never has to fit in memory. The columns are: marker name, chromosome, position, and the
+// p-value in the last column. The first line is a header. Any chromosome name is accepted, the
+// MarkerStore's ChromosomeDictionary sorts them out. Lines without a chromosome or whose p-value
+// cannot be parsed are reported and skipped; an unparseable position is an error.
+public class MarkerFileReader {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	private static final double[] POWERS_OF_TEN = {
+			1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+			1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+	MarkerSink _target;
+	byte[] _buffer;
+	boolean _skipHeader;
+
+	// The chromosome of the previous line, so consecutive lines of one chromosome skip the lookup
+	byte[] _lastChromosome;
+	int _lastChromosomeLength;
+	String _lastChromosomeName;
+
+	public MarkerFileReader(MarkerSink target, int bufferSize, boolean skipHeader) {
+		this(target, new byte[bufferSize], skipHeader);
+	}
+
+	// Reads through the given buffer, which may be replaced by a larger one for a very long line
+	public MarkerFileReader(MarkerSink target, byte[] buffer, boolean skipHeader) {
+		_target = target;
+		_buffer = buffer;
+		_skipHeader = skipHeader;
+		_lastChromosome = new byte[16];
+	}
+
+	public byte[] GetBuffer() {
+		return _buffer;
+	}
+
+	public static MarkerStore Read(Path path) throws IOException {
+		var store = new MarkerStore();
+		try (InputStream input = Files.newInputStream(path)) {
+			new MarkerFileReader(store, DEFAULT_BUFFER_SIZE, true).Read(input);
+		}
+		return store;
+	}
+
+	public void Read(InputStream input) throws IOException {
+		int filled = 0;
+		while (true) {
+			int read = input.read(_buffer, filled, _buffer.length - filled);
+			if (read < 0) {
+				break;
+			}
+			filled += read;
+
+			int lineStart = 0;
+			for (int i = lineStart; i < filled; i++) {
+				if (_buffer[i] == '\n') {
+					ParseLine(_buffer, lineStart, i);
+					lineStart = i + 1;
+				}
+			}
+
+			// Carry the incomplete last line over to the front of the buffer
+			System.arraycopy(_buffer, lineStart, _buffer, 0, filled - lineStart);
+			filled -= lineStart;
+			if (filled == _buffer.length) {
+				// A single line longer than the buffer
+				_buffer = Arrays.copyOf(_buffer, _buffer.length * 2);
+			}
+		}
+		if (filled > 0) {
+			ParseLine(_buffer, 0, filled);
+		}
+	}
+
+	void ParseLine(byte[] line, int start, int end) {
+		if (end > start && line[end - 1] == '\r') {
+			end--;
+		}
+		if (_skipHeader) {
+			_skipHeader = false;
+			return;
+		}
+		// Trailing empty columns are ignored, the same way String.split drops them
+		while (end > start && line[end - 1] == '\t') {
+			end--;
+		}
+		if (end == start) {
+			return;
+		}
+
+		int nameEnd = IndexOfTab(line, start, end);
+		int chromosomeEnd = IndexOfTab(line, nameEnd + 1, end);
+		int positionEnd = IndexOfTab(line, chromosomeEnd + 1, end);
+		if (chromosomeEnd >= end || chromosomeEnd == nameEnd + 1) {
+			if (Diagnostics.IsEnabled()) {
+				System.out.println("Could not parse line " + new String(line, start, end - start, StandardCharsets.UTF_8));
+			}
+			return;
+		}
+		int pvalueStart = end;
+		while (line[pvalueStart - 1] != '\t') {
+			pvalueStart--;
+		}
+
+		int position = ParseInt(line, chromosomeEnd + 1, positionEnd);
+
+		/* We suspect that this block of statement can throw
+		 * exception when p-value is NA
+		 */
+		double pvalue;
+		try {
+			pvalue = ParseDouble(line, pvalueStart, end);
+		}
+		catch (NumberFormatException e) {
+			int fieldEnd = positionEnd < end ? IndexOfTab(line, positionEnd + 1, end) : end;
+			int fieldStart = positionEnd < end ? positionEnd + 1 : pvalueStart;
+			if (Diagnostics.IsEnabled()) {
+				System.out.println("Could not parse pvalue for " + new String(line, fieldStart, fieldEnd - fieldStart, StandardCharsets.UTF_8));
+			}
+			return;
+		}
+
+		var chromosome = GetChromosome(line, nameEnd + 1, chromosomeEnd);
+		_target.Add(chromosome, line, start, nameEnd - start, position, pvalue);
+	}
+
+	private String GetChromosome(byte[] line, int start, int end) {
+		int length = end - start;
+		if (_lastChromosomeName == null || !Arrays.equals(_lastChromosome, 0, _lastChromosomeLength, line, start, end)) {
+			if (length > _lastChromosome.length) {
+				_lastChromosome = new byte[length];
+			}
+			System.arraycopy(line, start, _lastChromosome, 0, length);
+			_lastChromosomeLength = length;
+			_lastChromosomeName = new String(line, start, length, StandardCharsets.UTF_8);
+		}
+		return _lastChromosomeName;
+	}
+
+	private static int IndexOfTab(byte[] line, int from, int end) {
+		for (int i = from; i < end; i++) {
+			if (line[i] == '\t') {
+				return i;
+			}
+		}
+		return end;
+	}
+
+	// Same rules as Integer.parseInt: an optional sign followed by at least one digit.
+	static int ParseInt(byte[] text, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text[i] == '-' || text[i] == '+')) {
+			negative = text[i] == '-';
+			i++;
+		}
+		if (i == end) {
+			throw new NumberFormatException("For input string: \"" + new String(text, start, end - start, StandardCharsets.UTF_8) + "\"");
+		}
+		long value = 0;
+		for (; i < end; i++) {
+			int digit = text[i] - '0';
+			if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE + 1L) {
+				throw new NumberFormatException("For input string: \"" + new String(text, start, end - start, StandardCharsets.UTF_8) + "\"");
+			}
+			value = value * 10 + digit;
+		}
+		value = negative ? -value : value;
+		if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+			throw new NumberFormatException("For input string: \"" + new String(text, start, end - start, StandardCharsets.UTF_8) + "\"");
+		}
+		return (int) value;
+	}
+
+	// Plain decimal numbers with at most 15 significant digits and a small exponent, which covers
+	// p-values as they are usually written, are converted exactly with a single multiplication or
+	// division. Anything else falls back to Double.parseDouble so the result is always identical.
+	static double ParseDouble(byte[] text, int start, int end) {
+		int i = start;
+		boolean negative = false;
+		if (i < end && (text[i] == '-' || text[i] == '+')) {
+			negative = text[i] == '-';
+			i++;
+		}
+
+		long mantissa = 0;
+		int significantDigits = 0;
+		int digits = 0;
+		int exponent = 0;
+		for (; i < end && text[i] >= '0' && text[i] <= '9'; i++, digits++) {
+			if (mantissa > 0 || text[i] != '0') {
+				mantissa = mantissa * 10 + (text[i] - '0');
+				significantDigits++;
+			}
+		}
+		if (i < end && text[i] == '.') {
+			for (i++; i < end && text[i] >= '0' && text[i] <= '9'; i++, digits++) {
+				if (mantissa > 0 || text[i] != '0') {
+					mantissa = mantissa * 10 + (text[i] - '0');
+					significantDigits++;
+				}
+				exponent--;
+			}
+		}
+		if (i < end && (text[i] == 'e' || text[i] == 'E') && digits > 0) {
+			i++;
+			boolean negativeExponent = false;
+			if (i < end && (text[i] == '-' || text[i] == '+')) {
+				negativeExponent = text[i] == '-';
+				i++;
+			}
+			int exponentStart = i;
+			int explicitExponent = 0;
+			for (; i < end && text[i] >= '0' && text[i] <= '9' && explicitExponent < 1000; i++) {
+				explicitExponent = explicitExponent * 10 + (text[i] - '0');
+			}
+			if (i == exponentStart) {
+				return Fallback(text, start, end);
+			}
+			exponent += negativeExponent ? -explicitExponent : explicitExponent;
+		}
+
+		if (i != end || digits == 0 || significantDigits > 15) {
+			return Fallback(text, start, end);
+		}
+
+		double value;
+		if (mantissa == 0) {
+			value = 0;
+		} else if (exponent >= 0 && exponent < POWERS_OF_TEN.length) {
+			value = mantissa * POWERS_OF_TEN[exponent];
+		} else if (exponent < 0 && -exponent < POWERS_OF_TEN.length) {
+			value = mantissa / POWERS_OF_TEN[-exponent];
+		} else {
+			return Fallback(text, start, end);
+		}
+		return negative ? -value : value;
+	}
+
+	private static double Fallback(byte[] text, int start, int end) {
+		return Double.parseDouble(new String(text, start, end - start, StandardCharsets.UTF_8));
+	}
+}
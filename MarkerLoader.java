@@ -0,0 +1,83 @@
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+// Picks how an input file is loaded into a MarkerStore. Gzip and BGZF compressed files are
+// recognised by their header, whatever their extension, and decompressed on the fly. The returned
+// store is not sealed yet. An off-heap store keeps its columns in direct buffers, see DirectColumnStorage.
+public class MarkerLoader {
+
+	// Below this size the mapping and chunking overhead is not worth it
+	static final long MIN_MAPPED_FILE_SIZE = 64L << 20;
+	static final int GZIP_BUFFER_SIZE = 1 << 16;
+
+	public static MarkerStore Load(Path path, int parallelism) throws IOException {
+		return Load(path, parallelism, false);
+	}
+
+	public static MarkerStore Load(Path path, int parallelism, boolean offHeap) throws IOException {
+		if (!IsCompressed(path) && parallelism > 1 && Files.size(path) >= MIN_MAPPED_FILE_SIZE) {
+			return MappedMarkerLoader.Load(path, parallelism, offHeap);
+		}
+
+		var store = new MarkerStore(offHeap);
+		try (InputStream input = OpenDecompressed(path, parallelism)) {
+			new MarkerFileReader(store, MarkerFileReader.DEFAULT_BUFFER_SIZE, true).Read(input);
+		}
+		return store;
+	}
+
+	// Takes the store's storage and the read buffer from the pool. A mapped load only uses the pool's
+	// kind of storage, its partial stores are not pooled.
+	public static MarkerStore Load(Path path, int parallelism, MarkerBufferPool pool) throws IOException {
+		if (!IsCompressed(path) && parallelism > 1 && Files.size(path) >= MIN_MAPPED_FILE_SIZE) {
+			return MappedMarkerLoader.Load(path, parallelism, pool.IsOffHeap());
+		}
+
+		var store = new MarkerStore(pool);
+		var reader = new MarkerFileReader(store, pool.AcquireReadBuffer(MarkerFileReader.DEFAULT_BUFFER_SIZE), true);
+		try (InputStream input = OpenDecompressed(path, parallelism)) {
+			reader.Read(input);
+		}
+		finally {
+			pool.ReleaseReadBuffer(reader.GetBuffer());
+		}
+		return store;
+	}
+
+	// The text of the input file, decompressing gzip or BGZF input if needed
+	public static InputStream OpenDecompressed(Path path, int parallelism) throws IOException {
+		byte[] header = ReadHeader(path);
+		InputStream input = Files.newInputStream(path);
+		try {
+			if (BgzfInputStream.IsBgzf(header, header.length)) {
+				return new BgzfInputStream(new BufferedInputStream(input, GZIP_BUFFER_SIZE), parallelism);
+			}
+			if (IsGzip(header)) {
+				return new GZIPInputStream(input, GZIP_BUFFER_SIZE);
+			}
+			return input;
+		}
+		catch (IOException e) {
+			input.close();
+			throw e;
+		}
+	}
+
+	public static boolean IsCompressed(Path path) throws IOException {
+		return IsGzip(ReadHeader(path));
+	}
+
+	private static boolean IsGzip(byte[] header) {
+		return header.length >= 2 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b;
+	}
+
+	private static byte[] ReadHeader(Path path) throws IOException {
+		try (InputStream input = Files.newInputStream(path)) {
+			return input.readNBytes(18);
+		}
+	}
+}
@@ -0,0 +1,7 @@
+// Receives the markers MarkerFileReader parses, one call per line. The marker name is only valid
+// for the duration of the call; a sink that keeps it has to copy the bytes. Consecutive lines of
+// one chromosome are handed the same chromosome String instance.
+public interface MarkerSink {
+
+	void Add(String chromosome, byte[] source, int nameOffset, int nameLength, int position, double pvalue);
+}
@@ -0,0 +1,147 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Column oriented replacement for List<Marker>. Markers are partitioned by chromosome as they
+// are added, positions and p-values live in primitive arrays and every marker name is kept in
+// one shared byte arena, so a marker costs a few bytes of columns instead of a Marker object
+// plus two Strings. Marker objects are only created on demand through ChromosomeColumns.ToMarker.
+// The chromosome of a ChromosomeColumns is its code in the store's ChromosomeDictionary.
+// An off-heap store keeps its columns and names in direct buffers instead of arrays. A store made
+// with a MarkerBufferPool takes its storage from the pool and gives grown-out storage back to it.
+public class MarkerStore implements MarkerSink {
+
+	// Indexed by chromosome code
+	List<ChromosomeColumns> _chromosomes;
+	ChromosomeDictionary _dictionary;
+	NameArena _names;
+	boolean _offHeap;
+	MarkerBufferPool _pool;
+	int _size;
+
+	// The chromosome of the previous Add, so consecutive markers of one chromosome skip the lookup
+	String _lastChromosome;
+	ChromosomeColumns _lastColumns;
+
+	public MarkerStore() {
+		this(false);
+	}
+
+	public MarkerStore(boolean offHeap) {
+		_chromosomes = new ArrayList<ChromosomeColumns>();
+		_dictionary = new ChromosomeDictionary();
+		_names = offHeap ? NameArena.OffHeap() : NameArena.OnHeap();
+		_offHeap = offHeap;
+	}
+
+	public MarkerStore(MarkerBufferPool pool) {
+		_chromosomes = new ArrayList<ChromosomeColumns>();
+		_dictionary = new ChromosomeDictionary();
+		_names = pool.AcquireNames();
+		_offHeap = pool.IsOffHeap();
+		_pool = pool;
+	}
+
+	public void Add(String name, String chromosome, int position, double pvalue) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		int nameOffset = _names.Append(nameBytes, 0, nameBytes.length);
+		GetOrCreateChromosome(chromosome).Add(position, pvalue, nameOffset, nameBytes.length);
+		_size++;
+	}
+
+	// Adds a marker whose name is taken directly from a byte buffer, as MarkerFileReader does.
+	@Override
+	public void Add(String chromosome, byte[] source, int nameOffset, int nameLength, int position, double pvalue) {
+		if (_lastChromosome != chromosome) {
+			_lastColumns = GetOrCreateChromosome(chromosome);
+			_lastChromosome = chromosome;
+		}
+		_lastColumns.Add(position, pvalue, _names.Append(source, nameOffset, nameLength), nameLength);
+		_size++;
+	}
+
+	// Moves every marker of the other store to the end of this one, chromosome by chromosome.
+	public void Append(MarkerStore other) {
+		int nameShift = _names.Append(other._names);
+		for (ChromosomeColumns source : other._chromosomes) {
+			GetOrCreateChromosome(source.GetChromosome()).Append(source, nameShift);
+		}
+		_size += other._size;
+	}
+
+	// Sorts every chromosome by position. Call once loading has finished.
+	public void Seal() {
+		for (ChromosomeColumns columns : _chromosomes) {
+			columns.Seal();
+		}
+	}
+
+	public int Size() {
+		return _size;
+	}
+
+	// Chromosomes in the order they were first seen in the input, which is the order of their codes.
+	public List<ChromosomeColumns> GetChromosomes() {
+		return _chromosomes;
+	}
+
+	// Chromosomes in natural genomic order, the order their regions are numbered in.
+	public List<ChromosomeColumns> GetChromosomesInNaturalOrder() {
+		List<ChromosomeColumns> chromosomes = new ArrayList<ChromosomeColumns>(_chromosomes.size());
+		for (int code : _dictionary.CodesInNaturalOrder()) {
+			chromosomes.add(_chromosomes.get(code));
+		}
+		return chromosomes;
+	}
+
+	// Accepts any spelling the dictionary does, "chr1" finds chromosome 1
+	public ChromosomeColumns GetChromosome(String chromosome) {
+		int code = _dictionary.Find(chromosome);
+		return code < 0 ? null : _chromosomes.get(code);
+	}
+
+	public ChromosomeDictionary GetDictionary() {
+		return _dictionary;
+	}
+
+	public boolean IsOffHeap() {
+		return _offHeap;
+	}
+
+	// Roughly the memory the columns and names take up, on or off the heap. A column entry is a
+	// position, a p-value, a name offset and a name length, 20 bytes in all.
+	public long EstimatedBytes() {
+		long bytes = _names.Size();
+		for (ChromosomeColumns columns : _chromosomes) {
+			bytes += columns._columns.Capacity() * 20L;
+		}
+		return bytes;
+	}
+
+	String GetName(int offset, int length) {
+		return _names.GetString(offset, length);
+	}
+
+	ChromosomeColumns GetOrCreateChromosome(String chromosome) {
+		short code = _dictionary.CodeOf(chromosome);
+		if (code == _chromosomes.size()) {
+			_chromosomes.add(new ChromosomeColumns(this, code, _dictionary.NameOf(code), NewColumns(1024)));
+		}
+		return _chromosomes.get(code);
+	}
+
+	// Storage of the store's kind for at least capacity markers
+	ColumnStorage NewColumns(int capacity) {
+		if (_pool != null) {
+			return _pool.AcquireColumns(capacity);
+		}
+		return _offHeap ? new DirectColumnStorage(capacity) : new HeapColumnStorage(capacity);
+	}
+
+	// Storage a chromosome no longer uses
+	void Recycle(ColumnStorage columns) {
+		if (_pool != null) {
+			_pool.ReleaseColumns(columns);
+		}
+	}
+}
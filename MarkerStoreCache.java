@@ -0,0 +1,217 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+// Binary sidecar holding a sealed MarkerStore, written next to the input file on its first load so
+// later runs with different thresholds can skip parsing. The header records the size and last
+// modified time of the input file; if either has changed the sidecar is ignored and rewritten.
+//
+// Layout: header, then per chromosome its name, marker count, positions, p-values, name offsets
+// and name lengths, then the shared name arena. An off-heap load does not copy the columns at all,
+// the store reads them straight out of the mapped sidecar.
+public class MarkerStoreCache {
+
+	static final int MAGIC = 0x474a4d43; // "GJMC"
+	static final int VERSION = 2;
+	static final String EXTENSION = ".markers";
+	static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	public static Path SidecarFor(Path input) {
+		return input.resolveSibling(input.getFileName() + EXTENSION);
+	}
+
+	// The cached store, already sealed, or null when there is no up to date sidecar
+	public static MarkerStore TryLoad(Path input) throws IOException {
+		return TryLoad(input, false);
+	}
+
+	public static MarkerStore TryLoad(Path input, boolean offHeap) throws IOException {
+		Path sidecar = SidecarFor(input);
+		if (!Files.exists(sidecar)) {
+			return null;
+		}
+
+		// Each section is mapped on its own, so the sidecar as a whole may be larger than one mapping.
+		// Every length is checked against the file before it is used, and every marker name against the
+		// name arena. A sidecar that does not add up, because it is truncated or corrupt, counts as
+		// absent and is rewritten.
+		try (FileChannel channel = FileChannel.open(sidecar, StandardOpenOption.READ)) {
+			long sidecarSize = channel.size();
+			ByteBuffer header = Read(channel, 0, 32);
+			if (header == null || header.getInt() != MAGIC || header.getInt() != VERSION
+					|| header.getLong() != Files.size(input)
+					|| header.getLong() != Files.getLastModifiedTime(input).toMillis()) {
+				return null;
+			}
+			int chromosomeCount = header.getInt();
+			int nameArenaSize = header.getInt();
+			if (chromosomeCount < 0 || nameArenaSize < 0) {
+				return null;
+			}
+			long position = header.capacity();
+
+			var store = new MarkerStore(offHeap);
+			for (int c = 0; c < chromosomeCount; c++) {
+				ByteBuffer nameLength = Read(channel, position, 2);
+				if (nameLength == null || nameLength.getShort(0) < 0) {
+					return null;
+				}
+				byte[] chromosomeName = new byte[nameLength.getShort(0)];
+				ByteBuffer chromosomeHeader = Read(channel, position + 2, chromosomeName.length + 4);
+				if (chromosomeHeader == null) {
+					return null;
+				}
+				chromosomeHeader.get(chromosomeName);
+				int size = chromosomeHeader.getInt();
+				position += 2 + chromosomeName.length + 4;
+				// Four columns of four bytes and one of eight per marker, each column mapped on its own
+				if (size < 0 || 8L * size > Integer.MAX_VALUE || position + 20L * size > sidecarSize) {
+					return null;
+				}
+
+				// Every chromosome is written once, so a repeated one means the sidecar is corrupt
+				var chromosome = new String(chromosomeName, StandardCharsets.UTF_8);
+				if (store.GetChromosome(chromosome) != null) {
+					return null;
+				}
+				var columns = store.GetOrCreateChromosome(chromosome);
+				ByteBuffer positions = Map(channel, position, size * 4);
+				ByteBuffer pvalues = Map(channel, position + 4L * size, size * 8);
+				ByteBuffer nameOffsets = Map(channel, position + 12L * size, size * 4);
+				ByteBuffer nameLengths = Map(channel, position + 16L * size, size * 4);
+				position += 20L * size;
+				if (offHeap) {
+					// Mappings are big endian, the order the sidecar is written in
+					columns._columns = new DirectColumnStorage(positions, pvalues, nameOffsets, nameLengths);
+				} else {
+					var heapColumns = new HeapColumnStorage(size);
+					positions.asIntBuffer().get(heapColumns._positions);
+					pvalues.asDoubleBuffer().get(heapColumns._pvalues);
+					nameOffsets.asIntBuffer().get(heapColumns._nameOffsets);
+					nameLengths.asIntBuffer().get(heapColumns._nameLengths);
+					columns._columns = heapColumns;
+				}
+				if (!NamesWithin(columns._columns, size, nameArenaSize)) {
+					return null;
+				}
+				columns._size = size;
+				store._size += size;
+			}
+			if (position + nameArenaSize != sidecarSize) {
+				return null;
+			}
+			ByteBuffer names = Map(channel, position, nameArenaSize);
+			if (offHeap) {
+				store._names = new NameArena.Direct(names);
+			} else {
+				byte[] heapNames = new byte[nameArenaSize];
+				names.get(heapNames);
+				store._names = new NameArena.Heap(heapNames);
+			}
+			store._names._size = nameArenaSize;
+
+			store.Seal();
+			return store;
+		}
+	}
+
+	// Writes the sidecar for a sealed store. It is written to a temporary file first and moved into
+	// place, so a concurrent run never maps a half written sidecar.
+	public static void Write(Path input, MarkerStore store) throws IOException {
+		Path sidecar = SidecarFor(input);
+		Path temporary = sidecar.resolveSibling(sidecar.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putLong(Files.size(input));
+			buffer.putLong(Files.getLastModifiedTime(input).toMillis());
+			buffer.putInt(store.GetChromosomes().size());
+			buffer.putInt(store._names.Size());
+
+			for (ChromosomeColumns columns : store.GetChromosomes()) {
+				byte[] chromosomeName = columns.GetChromosome().getBytes(StandardCharsets.UTF_8);
+				buffer = Reserve(channel, buffer, chromosomeName.length + 6);
+				buffer.putShort((short) chromosomeName.length);
+				buffer.put(chromosomeName);
+				buffer.putInt(columns._size);
+
+				for (int i = 0; i < columns._size; i++) {
+					buffer = Reserve(channel, buffer, 4);
+					buffer.putInt(columns.GetPosition(i));
+				}
+				for (int i = 0; i < columns._size; i++) {
+					buffer = Reserve(channel, buffer, 8);
+					buffer.putDouble(columns.GetPvalue(i));
+				}
+				for (int i = 0; i < columns._size; i++) {
+					buffer = Reserve(channel, buffer, 4);
+					buffer.putInt(columns._columns.GetNameOffset(i));
+				}
+				for (int i = 0; i < columns._size; i++) {
+					buffer = Reserve(channel, buffer, 4);
+					buffer.putInt(columns._columns.GetNameLength(i));
+				}
+			}
+
+			byte[] chunk = new byte[1 << 16];
+			for (int offset = 0; offset < store._names.Size(); ) {
+				buffer = Reserve(channel, buffer, 1);
+				int count = Math.min(Math.min(buffer.remaining(), chunk.length), store._names.Size() - offset);
+				store._names.Get(offset, chunk, 0, count);
+				buffer.put(chunk, 0, count);
+				offset += count;
+			}
+			Flush(channel, buffer);
+		}
+
+		Files.move(temporary, sidecar, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	private static boolean NamesWithin(ColumnStorage columns, int size, int nameArenaSize) {
+		for (int i = 0; i < size; i++) {
+			int offset = columns.GetNameOffset(i);
+			int length = columns.GetNameLength(i);
+			if (offset < 0 || length < 0 || (long) offset + length > nameArenaSize) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	// Exactly length bytes from the given position, or null when the file ends before them
+	private static ByteBuffer Read(FileChannel channel, long position, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, position + buffer.position()) < 0) {
+				return null;
+			}
+		}
+		return buffer.flip();
+	}
+
+	private static ByteBuffer Map(FileChannel channel, long position, int length) throws IOException {
+		return channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+	}
+
+	private static ByteBuffer Reserve(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if (buffer.remaining() < bytes) {
+			Flush(channel, buffer);
+		}
+		return buffer;
+	}
+
+	private static void Flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while (buffer.hasRemaining()) {
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+}
@@ -0,0 +1,27 @@
+// A contiguous run of marker ordinals [From, To) within one position-sorted chromosome.
+public class MarkerWindow {
+
+	final int _from;
+	final int _to;
+
+	public MarkerWindow(int from, int to) {
+		_from = from;
+		_to = to;
+	}
+
+	public int From() {
+		return _from;
+	}
+
+	public int To() {
+		return _to;
+	}
+
+	public int Size() {
+		return _to - _from;
+	}
+
+	public boolean IsEmpty() {
+		return _to <= _from;
+	}
+}
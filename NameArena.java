@@ -0,0 +1,139 @@
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Every marker name of a MarkerStore, back to back as UTF-8. A marker refers to its name by offset
+// and length. The heap arena is one growing byte array, the direct arena a growing direct
+// ByteBuffer, used together with DirectColumnStorage to keep the names off the heap as well.
+public abstract class NameArena {
+
+	int _size;
+
+	public static NameArena OnHeap() {
+		return new Heap(new byte[1 << 16]);
+	}
+
+	public static NameArena OffHeap() {
+		return new Direct(ByteBuffer.allocateDirect(1 << 16));
+	}
+
+	public int Size() {
+		return _size;
+	}
+
+	// Bytes the arena can hold before it has to grow
+	public abstract int Capacity();
+
+	// Copies the bytes to the end of the arena and returns their offset
+	public int Append(byte[] source, int offset, int length) {
+		Reserve(length);
+		Put(source, offset, length);
+		int nameOffset = _size;
+		_size += length;
+		return nameOffset;
+	}
+
+	// Copies the other arena to the end of this one and returns the offset it starts at
+	public int Append(NameArena other) {
+		byte[] chunk = new byte[Math.min(other._size, 1 << 16)];
+		int start = _size;
+		Reserve(other._size);
+		for (int offset = 0; offset < other._size; offset += chunk.length) {
+			int length = Math.min(chunk.length, other._size - offset);
+			other.Get(offset, chunk, 0, length);
+			Put(chunk, 0, length);
+			_size += length;
+		}
+		return start;
+	}
+
+	public String GetString(int offset, int length) {
+		byte[] bytes = new byte[length];
+		Get(offset, bytes, 0, length);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	// Copies length bytes starting at offset into the target
+	public abstract void Get(int offset, byte[] target, int targetOffset, int length);
+
+	// Writes at _size, which Reserve has made room for
+	abstract void Put(byte[] source, int offset, int length);
+
+	abstract void Reserve(int length);
+
+	static int GrownCapacity(int capacity, int size, int length) {
+		if ((long) size + length > Integer.MAX_VALUE - 8) {
+			throw new IllegalStateException("Marker names exceed 2 GB");
+		}
+		return (int) Math.min(Integer.MAX_VALUE - 8, Math.max(capacity * 2L, (long) size + length));
+	}
+
+	static class Heap extends NameArena {
+
+		byte[] _bytes;
+
+		Heap(byte[] bytes) {
+			_bytes = bytes;
+		}
+
+		@Override
+		public int Capacity() {
+			return _bytes.length;
+		}
+
+		@Override
+		public String GetString(int offset, int length) {
+			return new String(_bytes, offset, length, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public void Get(int offset, byte[] target, int targetOffset, int length) {
+			System.arraycopy(_bytes, offset, target, targetOffset, length);
+		}
+
+		@Override
+		void Put(byte[] source, int offset, int length) {
+			System.arraycopy(source, offset, _bytes, _size, length);
+		}
+
+		@Override
+		void Reserve(int length) {
+			if (_size + length > _bytes.length) {
+				_bytes = Arrays.copyOf(_bytes, GrownCapacity(_bytes.length, _size, length));
+			}
+		}
+	}
+
+	static class Direct extends NameArena {
+
+		ByteBuffer _bytes;
+
+		Direct(ByteBuffer bytes) {
+			_bytes = bytes;
+		}
+
+		@Override
+		public int Capacity() {
+			return _bytes.capacity();
+		}
+
+		@Override
+		public void Get(int offset, byte[] target, int targetOffset, int length) {
+			_bytes.get(offset, target, targetOffset, length);
+		}
+
+		@Override
+		void Put(byte[] source, int offset, int length) {
+			_bytes.put(_size, source, offset, length);
+		}
+
+		@Override
+		void Reserve(int length) {
+			if (_size + length > _bytes.capacity()) {
+				var grown = ByteBuffer.allocateDirect(GrownCapacity(_bytes.capacity(), _size, length));
+				grown.put(0, _bytes, 0, _size);
+				_bytes = grown;
+			}
+		}
+	}
+}
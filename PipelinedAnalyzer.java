@@ -0,0 +1,292 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Supplier;
+
+// Overlaps reading, analysis and writing instead of running them one after the other. The reading
+// thread collects the markers of one chromosome at a time and hands each finished chromosome to a
+// bounded queue; a fixed set of worker threads seal and analyse chromosomes from that queue; a
+// writer thread writes their regions in input order as soon as each is done. When the workers fall
+// behind the queue fills up and the reader waits, so at most a few chromosomes are held in memory.
+//
+// The input has to be grouped by chromosome and the chromosomes have to come in natural order, in
+// any position order within a chromosome. Regions are numbered as they are written, and the writer
+// cannot know whether an earlier chromosome is still to come, so a chromosome that sorts before the
+// one read last stops the run with an ArithmeticException, as StreamingAnalyzer does. Input that
+// passes gives the same file as RecursiveGeneAnalyzer.
+public class PipelinedAnalyzer implements MarkerSink {
+
+	static final Batch END_OF_BATCHES = new Batch(null);
+	static final CompletableFuture<List<Region>> END_OF_RESULTS = new CompletableFuture<List<Region>>();
+
+	Path _inputFileLocation;
+	String _outputFileLocation;
+	// Makes the analyzer for one chromosome, with the engine and thresholds of the run
+	Supplier<RecursiveGeneAnalyzer> _analyzers;
+	int _parallelism;
+	int _readBufferSize;
+	ResultFormat _resultFormat;
+	int _writeBufferSize;
+	boolean _offHeap;
+	boolean _writeRegionIndex;
+	RunMetrics _metrics;
+
+	BlockingQueue<Batch> _batches;
+	// The results in input order, one per batch, completed by the workers in any order
+	BlockingQueue<CompletableFuture<List<Region>>> _results;
+	List<Region> _resultSet;
+	volatile Throwable _failure;
+
+	// The chromosome as the reader last passed it, its canonical name, and its markers so far
+	String _inputChromosome;
+	String _chromosome;
+	MarkerStore _batch;
+
+	public PipelinedAnalyzer(String inputFileLocation, String outputFileLocation, Supplier<RecursiveGeneAnalyzer> analyzers) {
+		_inputFileLocation = Paths.get(inputFileLocation);
+		_outputFileLocation = outputFileLocation;
+		_analyzers = analyzers;
+
+		_parallelism = Runtime.getRuntime().availableProcessors();
+		_readBufferSize = MarkerFileReader.DEFAULT_BUFFER_SIZE;
+		_resultFormat = ResultFormat.TSV;
+		_writeBufferSize = RegionWriter.DEFAULT_BUFFER_SIZE;
+		_metrics = new RunMetrics();
+		_resultSet = new ArrayList<Region>();
+	}
+
+	// Number of worker threads, which is also how many read chromosomes may wait for a worker.
+	public void setParallelism(int parallelism) {
+		_parallelism = parallelism;
+	}
+
+	public void setReadBufferSize(int readBufferSize) {
+		_readBufferSize = readBufferSize;
+	}
+
+	public void setResultFormat(ResultFormat resultFormat) {
+		_resultFormat = resultFormat;
+	}
+
+	public void setWriteBufferSize(int writeBufferSize) {
+		_writeBufferSize = writeBufferSize;
+	}
+
+	public void setOffHeap(boolean offHeap) {
+		_offHeap = offHeap;
+	}
+
+	public void setWriteRegionIndex(boolean writeRegionIndex) {
+		_writeRegionIndex = writeRegionIndex;
+	}
+
+	// The load phase covers the whole read, including the time the reader waits for a free queue slot.
+	public void setMetrics(RunMetrics metrics) {
+		_metrics = metrics;
+	}
+
+	public void RunThroughDataset() {
+		_batches = new ArrayBlockingQueue<Batch>(_parallelism);
+		_results = new LinkedBlockingQueue<CompletableFuture<List<Region>>>();
+
+		try (RegionWriter writer = _resultFormat.Open(Paths.get(_outputFileLocation), _writeBufferSize);
+				InputStream input = MarkerLoader.OpenDecompressed(_inputFileLocation, _parallelism)) {
+			List<Thread> threads = new ArrayList<Thread>();
+			for (int i = 0; i < _parallelism; i++) {
+				threads.add(new Thread(this::Work, "pipeline-worker-" + (i + 1)));
+			}
+			threads.add(new Thread(() -> WriteResults(writer), "pipeline-writer"));
+			for (Thread thread : threads) {
+				thread.start();
+			}
+
+			var timer = _metrics.Start(RunMetrics.LOAD);
+			try {
+				Diagnostics.Print("Found file and loading...");
+				new MarkerFileReader(this, _readBufferSize, true).Read(input);
+				Dispatch();
+			}
+			finally {
+				timer.Stop();
+				for (int i = 0; i < _parallelism; i++) {
+					Put(_batches, END_OF_BATCHES);
+				}
+				Put(_results, END_OF_RESULTS);
+				for (Thread thread : threads) {
+					Join(thread);
+				}
+			}
+
+			if (_failure instanceof IOException) {
+				throw (IOException) _failure;
+			}
+			if (_failure instanceof Error) {
+				throw (Error) _failure;
+			}
+			if (_failure != null) {
+				throw (RuntimeException) _failure;
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		catch (UncheckedIOException e) {
+			e.getCause().printStackTrace();
+			return;
+		}
+
+		if (_writeRegionIndex) {
+			try {
+				RegionQueryIndex.Write(Paths.get(_outputFileLocation), _resultSet);
+			}
+			catch (IOException e) {
+				System.out.println("Could not write the region index: " + e);
+			}
+		}
+	}
+
+	@Override
+	public void Add(String chromosome, byte[] source, int nameOffset, int nameLength, int position, double pvalue) {
+		if (chromosome != _inputChromosome) {
+			_inputChromosome = chromosome;
+			var name = ChromosomeDictionary.Canonical(chromosome);
+			if (!name.equals(_chromosome)) {
+				Dispatch();
+				if (_chromosome != null && ChromosomeDictionary.Compare(name, _chromosome) <= 0) {
+					throw new ArithmeticException("Not in genomic order");
+				}
+				_chromosome = name;
+				_batch = new MarkerStore(_offHeap);
+			}
+		}
+		_batch.Add(chromosome, source, nameOffset, nameLength, position, pvalue);
+	}
+
+	// Hands the chromosome read so far to the workers, waiting while the queue is full
+	private void Dispatch() {
+		if (_failure != null) {
+			throw new IllegalStateException("Pipeline stopped", _failure);
+		}
+		if (_batch == null) {
+			return;
+		}
+		_metrics.Count(RunMetrics.MARKERS, _batch.Size());
+		var batch = new Batch(_batch);
+		_batch = null;
+		Put(_results, batch._regions);
+		Put(_batches, batch);
+	}
+
+	private void Work() {
+		while (true) {
+			var batch = Take(_batches);
+			if (batch == END_OF_BATCHES) {
+				return;
+			}
+			try {
+				var timer = _metrics.Start(RunMetrics.PARTITION);
+				try {
+					batch._store.Seal();
+				}
+				finally {
+					timer.Stop();
+				}
+				var geneAnalyzer = _analyzers.get();
+				geneAnalyzer.setDataSet(batch._store);
+				geneAnalyzer.setMetrics(_metrics);
+				batch._regions.complete(geneAnalyzer.RunChromosome(batch._store.GetChromosomes().get(0)));
+			}
+			catch (RuntimeException | Error e) {
+				batch._regions.completeExceptionally(e);
+			}
+		}
+	}
+
+	// Writes each chromosome's regions once it and every chromosome read before it are done. After a
+	// failure the remaining results are only drained, so the workers and the reader can finish.
+	private void WriteResults(RegionWriter writer) {
+		while (true) {
+			var result = Take(_results);
+			if (result == END_OF_RESULTS) {
+				return;
+			}
+			if (_failure != null) {
+				continue;
+			}
+			try {
+				var regions = result.join();
+				var timer = _metrics.Start(RunMetrics.WRITE);
+				try {
+					for (Region region : regions) {
+						region.setRegionIndex(_resultSet.size() + 1);
+						_resultSet.add(region);
+						writer.Write(region);
+					}
+					writer.Flush();
+				}
+				finally {
+					timer.Stop();
+				}
+				_metrics.Count(RunMetrics.REGIONS, regions.size());
+			}
+			catch (CompletionException e) {
+				_failure = e.getCause();
+			}
+			catch (IOException | RuntimeException e) {
+				_failure = e;
+			}
+		}
+	}
+
+	private static <T> void Put(BlockingQueue<T> queue, T item) {
+		try {
+			queue.put(item);
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the pipeline", e);
+		}
+	}
+
+	private static <T> T Take(BlockingQueue<T> queue) {
+		try {
+			return queue.take();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the pipeline", e);
+		}
+	}
+
+	private static void Join(Thread thread) {
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while waiting for the pipeline", e);
+		}
+	}
+
+	// The markers of one chromosome on their way through the pipeline
+	static class Batch {
+
+		final MarkerStore _store;
+		final CompletableFuture<List<Region>> _regions;
+
+		Batch(MarkerStore store) {
+			_store = store;
+			_regions = new CompletableFuture<List<Region>>();
+		}
+	}
+}
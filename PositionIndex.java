@@ -0,0 +1,74 @@
+import java.nio.IntBuffer;
+import java.util.List;
+
+// Binary search over the positions of one position-sorted chromosome. A window lookup costs
+// O(log n) and comes back as a MarkerWindow, a range of ordinals, so nothing is copied. The
+// positions are either an array or, for off-heap columns, an IntBuffer.
+public class PositionIndex {
+
+	final int[] _positions;
+	final IntBuffer _positionBuffer;
+	final int _size;
+
+	public PositionIndex(int[] positions, int size) {
+		_positions = positions;
+		_positionBuffer = null;
+		_size = size;
+	}
+
+	public PositionIndex(IntBuffer positions, int size) {
+		_positions = null;
+		_positionBuffer = positions;
+		_size = size;
+	}
+
+	// The markers must already be in position order, as GeneAnalyzer requires.
+	public static PositionIndex Of(List<Marker> markers) {
+		int[] positions = new int[markers.size()];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = markers.get(i).Position;
+		}
+		return new PositionIndex(positions, positions.length);
+	}
+
+	// Markers with a position in [startPosition, stopPosition]
+	public MarkerWindow Between(int startPosition, int stopPosition) {
+		int from = LowerBound(startPosition);
+		int to = Math.max(from, UpperBound(stopPosition));
+		return new MarkerWindow(from, to);
+	}
+
+	// Ordinal of the first marker at or after the position
+	public int LowerBound(int position) {
+		int low = 0;
+		int high = _size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (PositionAt(middle) < position) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	// Ordinal of the first marker after the position
+	public int UpperBound(int position) {
+		int low = 0;
+		int high = _size;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (PositionAt(middle) <= position) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+
+	private int PositionAt(int ordinal) {
+		return _positions != null ? _positions[ordinal] : _positionBuffer.get(ordinal);
+	}
+}
@@ -1,20 +1,16 @@
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
-import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.List;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.IntStream;
 
-public class RecursiveGeneAnalyzer {
+public class RecursiveGeneAnalyzer implements ClumpingEngine {
 	double _indexPvalueThreshold;
     double _suggestivePvalueThreshold;
     Path _inputFileLocation;
@@ -22,8 +18,21 @@ public class RecursiveGeneAnalyzer {
     String _outputFileLocation;
 
     List<Region> _resultSet;
-    List<Marker> _totalDataSet;
-    List<Marker> _defInRegion; 
+    MarkerStore _totalDataSet;
+    ClumpingEngine _engine;
+    int _parallelism;
+    boolean _useCache;
+    boolean _offHeap;
+    MarkerBufferPool _bufferPool;
+    ForkJoinPool _pool;
+    SuggestiveMarkerIndex _suggestiveIndex;
+    ResultFormat _resultFormat;
+    int _writeBufferSize;
+    int _shard;
+    int _shardCount;
+    boolean _writeRegionIndex;
+    int _topRegions;
+    RunMetrics _metrics;
     
     public RecursiveGeneAnalyzer(double indexPvalueThreshold, double suggestivePvalueThreshold, String inputFileLocation, int searchSpace, String outputFileLocation) {
         _indexPvalueThreshold = indexPvalueThreshold;
@@ -33,160 +42,439 @@ public class RecursiveGeneAnalyzer {
         _outputFileLocation = outputFileLocation;
         
         _resultSet = new ArrayList<Region>();
-        _defInRegion = new ArrayList<Marker>();
+        _engine = this;
+        _parallelism = Runtime.getRuntime().availableProcessors();
+        _suggestiveIndex = new SuggestiveMarkerIndex(suggestivePvalueThreshold);
+        _resultFormat = ResultFormat.TSV;
+        _writeBufferSize = RegionWriter.DEFAULT_BUFFER_SIZE;
+        _shard = 1;
+        _shardCount = 1;
+        _metrics = new RunMetrics();
+    }
+    
+    // Defaults to the recursive traverse search implemented by this class.
+    public void setEngine(ClumpingEngine engine) {
+    	_engine = engine;
+    }
+    
+    // Number of chromosomes analysed at the same time. Defaults to one per available processor.
+    public void setParallelism(int parallelism) {
+    	_parallelism = parallelism;
+    }
+    
+    // Keep the parsed markers in a binary sidecar next to the input and reuse it on later runs.
+    public void setUseCache(boolean useCache) {
+    	_useCache = useCache;
+    }
+    
+    // Keep the markers in direct buffers outside the heap. Needs -XX:MaxDirectMemorySize large enough for them.
+    public void setOffHeap(boolean offHeap) {
+    	_offHeap = offHeap;
+    }
+    
+    // Loads the markers into storage from the pool, which should then get it back through Release
+    // once the analyzer is done. Its kind of storage takes the place of setOffHeap.
+    public void setBufferPool(MarkerBufferPool bufferPool) {
+    	_bufferPool = bufferPool;
+    }
+    
+    // Runs the chromosomes on a pool shared with other analyzers instead of a pool of its own.
+    public void setPool(ForkJoinPool pool) {
+    	_pool = pool;
+    }
+    
+    // Shares the suggestive markers with other analyzers that use the same suggestive threshold.
+    public void setSuggestiveIndex(SuggestiveMarkerIndex suggestiveIndex) {
+    	if(suggestiveIndex.GetSuggestivePvalueThreshold() != _suggestivePvalueThreshold) {
+    		throw new IllegalArgumentException("Suggestive index was built for a threshold of " + suggestiveIndex.GetSuggestivePvalueThreshold());
+    	}
+    	_suggestiveIndex = suggestiveIndex;
+    }
+    
+    public void setResultFormat(ResultFormat resultFormat) {
+    	_resultFormat = resultFormat;
+    }
+    
+    // Size in bytes of the buffer the result file is written through.
+    public void setWriteBufferSize(int writeBufferSize) {
+    	_writeBufferSize = writeBufferSize;
+    }
+    
+    // Only analyses the chromosomes ChromosomeShards assigns to this shard, numbered from 1.
+    // ShardMerge combines the results of all shards.
+    public void setShard(int shard, int shardCount) {
+    	_shard = shard;
+    	_shardCount = shardCount;
+    }
+    
+    // Stop after the given number of regions, taking index markers in order of significance across all
+    // chromosomes instead of in position order per chromosome. Zero, the default, finds every region.
+    public void setTopRegions(int topRegions) {
+    	_topRegions = topRegions;
+    }
+    
+    // Also persist a RegionQueryIndex of the regions next to the output file.
+    public void setWriteRegionIndex(boolean writeRegionIndex) {
+    	_writeRegionIndex = writeRegionIndex;
+    }
+    
+    // Collects the counters and phase timings of the run, possibly together with other analyzers.
+    public void setMetrics(RunMetrics metrics) {
+    	_metrics = metrics;
+    }
+    
+    public RunMetrics getMetrics() {
+    	return _metrics;
+    }
+    
+    // Analyses markers that are already loaded instead of uploading the input file again.
+    public void setDataSet(MarkerStore dataSet) {
+    	_totalDataSet = dataSet;
+    }
+    
+    public MarkerStore getDataSet() {
+    	return _totalDataSet;
     }
     
     public void RunThroughDataset() {
     	
-    	UploadDataset();
-    	final String[] chromosomes = new String[] {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17", "18", "19", "20", "21", "22"};
+    	if(_totalDataSet == null) {
+    		UploadDataset();
+    	}
+    	try (RegionWriter writer = _resultFormat.Open(Paths.get(_outputFileLocation), _writeBufferSize)) {
+    		RunThroughDataset(writer);
+    	}
+    	catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
     	
-    	for(int x = 0; x < chromosomes.length; x++) {
-    		String currentChromosomeUnderAnalysis = chromosomes[x]; 
-    		List<Marker> workingChromosomeSet = _totalDataSet.stream()
-    											.filter(y -> y.getChromosome().equals(currentChromosomeUnderAnalysis))
-    											.collect(Collectors.toList());
-    		
-    		if(!ShouldRunFurtherAnalysis(workingChromosomeSet)) {
-    			System.out.println("Could not find any markers under the p-value threshold from chromosome " + currentChromosomeUnderAnalysis);
+    	if(_writeRegionIndex) {
+    		var timer = _metrics.Start(RunMetrics.WRITE);
+    		try {
+    			RegionQueryIndex.Write(Paths.get(_outputFileLocation), _resultSet);
     		}
-    		else {
-    			List<Marker> IndexLevelMarkers = GetPositionsOfIndexMarkers(workingChromosomeSet);
-
-    			for(Marker candidate : IndexLevelMarkers){
-    				System.out.println(candidate.Chromosome);
-    				List<Marker> entireRegionSet = TraverseSearch(workingChromosomeSet, candidate.Position);
-    				if(!_defInRegion.containsAll(entireRegionSet)) {
-    					_defInRegion.addAll(entireRegionSet);
-    					
-    					
-    					ConstructRegionAndAppendToResultSet(entireRegionSet);
-    				}
-    				
-    				System.out.println("---- ");
-    			}
-    			
+    		catch (IOException e) {
+    			System.out.println("Could not write the region index: " + e);
     		}
+    		finally {
+    			timer.Stop();
+    		}
+    	}
+    }
+    
+    // Writes the regions to the given writer instead of the output file, for callers that send them
+    // somewhere else. The dataset has to be loaded or set already.
+    public void RunThroughDataset(RegionWriter writer) throws IOException {
+    	// Every chromosome found in the input, autosomes, sex chromosomes and contigs alike, in natural
+    	// genomic order. Chromosomes without markers never get columns, so they cost nothing.
+    	final List<ChromosomeColumns> chromosomes = _shardCount > 1 
+    			? ChromosomeShards.Assigned(_totalDataSet, _shard, _shardCount) 
+    			: _totalDataSet.GetChromosomesInNaturalOrder();
+    	
+    	if(_topRegions > 0) {
+    		RunTopRegions(writer, chromosomes);
+    		return;
     	}
     	
+    	// Chromosomes are independent of each other, so they are analysed concurrently. The results are
+    	// collected in chromosome order afterwards, which keeps the region indices in genomic order, and
+    	// each chromosome is written out as soon as it and every chromosome before it are done.
+    	ForkJoinPool pool = _pool != null ? _pool : new ForkJoinPool(_parallelism);
+    	List<ForkJoinTask<List<Region>>> chromosomeResults = new ArrayList<ForkJoinTask<List<Region>>>();
     	try {
-			BuildResultFile();
-		} catch (IOException e) {
-			e.printStackTrace();
-		}
+	    	for(ChromosomeColumns workingChromosomeSet : chromosomes) {
+	    		chromosomeResults.add(pool.submit(() -> RunChromosome(workingChromosomeSet)));
+	    	}
+	    	
+	    	for(ForkJoinTask<List<Region>> chromosomeResult : chromosomeResults) {
+	    		var regions = chromosomeResult.join();
+	    		var timer = _metrics.Start(RunMetrics.WRITE);
+	    		try {
+		    		for(Region region : regions) {
+		    			region.setRegionIndex(_resultSet.size() + 1);
+		    			_resultSet.add(region);
+		    			writer.Write(region);
+		    		}
+		    		writer.Flush();
+	    		}
+	    		finally {
+	    			timer.Stop();
+	    		}
+	    		_metrics.Count(RunMetrics.REGIONS, regions.size());
+	    	}
+    	}
+    	finally {
+    		// After a failure the other chromosomes may still be reading the store, so they are waited
+    		// for before the caller gets to release or reuse it
+    		for(ForkJoinTask<List<Region>> chromosomeResult : chromosomeResults) {
+    			chromosomeResult.quietlyJoin();
+    		}
+    		if(pool != _pool) {
+    			pool.shutdown();
+    		}
+    	}
     	
     }
 
-	private void ConstructRegionAndAppendToResultSet(List<Marker> entireRegionSet) {
-		Collections.sort(entireRegionSet, new Comparator<Marker>(){
-	   	     public int compare(Marker o1, Marker o2){
-	   	         if(o1.Position == o2.Position)
-	   	             return 0;
-	   	         return o1.Position < o2.Position ? -1 : 1;
-	   	     }
-	   	});
-    	var sug = entireRegionSet.stream()
-		.filter(p -> p.getPvalue() <= _suggestivePvalueThreshold)
-		.collect(Collectors.toList());
-		
-    	sug.forEach(x -> System.out.println("Position: " + x.Position + " Sugg P Val: " + x.Pvalue));
+    // The regions of one chromosome from the configured engine, with the chromosome's metrics recorded.
+    List<Region> RunChromosome(ChromosomeColumns workingChromosomeSet) {
+    	long startNanos = System.nanoTime();
+    	List<Region> regions;
+    	var timer = _metrics.Start(RunMetrics.ANALYSE);
+    	try {
+    		if(!ShouldRunFurtherAnalysis(workingChromosomeSet)) {
+    			Diagnostics.Print("Could not find any markers under the p-value threshold from chromosome " + workingChromosomeSet.GetChromosome());
+    			regions = new ArrayList<Region>();
+    		}
+    		else {
+    			regions = _engine.AnalyzeChromosome(workingChromosomeSet);
+    		}
+    	}
+    	finally {
+    		timer.Stop();
+    	}
+    	_metrics.Count(RunMetrics.CHROMOSOMES, 1);
+    	_metrics.AddChromosome(workingChromosomeSet.GetChromosome(), workingChromosomeSet.Size(), regions.size(), System.nanoTime() - startNanos);
+    	return regions;
+    }
+    
+    // Index markers from every chromosome go into one heap and come out most significant first. A
+    // marker inside a region emitted before is skipped without a search, and the run ends at the
+    // K-th region, so the number of traverse searches depends on K rather than on the number of index
+    // markers. Regions are numbered and written in the order they are found, by significance, and are
+    // the same regions a full run finds: the K most significant rows of its output.
+    private void RunTopRegions(RegionWriter writer, List<ChromosomeColumns> chromosomes) throws IOException {
+    	List<int[]> indexMarkers = new ArrayList<int[]>();
+    	List<Region> allRegions = new ArrayList<Region>();
+    	ForkJoinPool pool = _pool != null ? _pool : new ForkJoinPool(_parallelism);
+    	var timer = _metrics.Start(RunMetrics.ANALYSE);
+    	try {
+    		if(_indexPvalueThreshold > _suggestivePvalueThreshold) {
+    			// Index markers need not be suggestive then, and which region a marker ends up in depends
+    			// on every region before it, so the chromosomes are analysed in full and ranked afterwards
+    			List<ForkJoinTask<List<Region>>> chromosomeResults = new ArrayList<ForkJoinTask<List<Region>>>();
+    			for(ChromosomeColumns workingChromosomeSet : chromosomes) {
+    				chromosomeResults.add(pool.submit(() -> _engine.AnalyzeChromosome(workingChromosomeSet)));
+    			}
+    			for(ForkJoinTask<List<Region>> chromosomeResult : chromosomeResults) {
+    				allRegions.addAll(chromosomeResult.join());
+    			}
+    		}
+    		else {
+    			// Filtering the chromosomes for index markers is still a pass over each, so it runs concurrently
+    			List<ForkJoinTask<int[]>> chromosomeMarkers = new ArrayList<ForkJoinTask<int[]>>();
+    			for(ChromosomeColumns workingChromosomeSet : chromosomes) {
+    				chromosomeMarkers.add(pool.submit(() -> GetPositionsOfIndexMarkers(workingChromosomeSet)));
+    			}
+    			for(ForkJoinTask<int[]> markers : chromosomeMarkers) {
+    				indexMarkers.add(markers.join());
+    			}
+    		}
+    	}
+    	finally {
+    		timer.Stop();
+    		if(pool != _pool) {
+    			pool.shutdown();
+    		}
+    	}
     	
-		Region newRegion = new Region(){};
-		newRegion.setRegionStart(entireRegionSet.get(0).Position);
-       	
-		Marker smallestMarker = GetMarkerWithLowestPValue(entireRegionSet); 
-		newRegion.setChr(Integer.parseInt(smallestMarker.getChromosome()));
-    	newRegion.setMarkerName(smallestMarker.getName());
-    	newRegion.setPosition(smallestMarker.getPosition());
-    	newRegion.setPvalue(smallestMarker.getPvalue());
+    	if(_indexPvalueThreshold > _suggestivePvalueThreshold) {
+    		// Stable, so equally significant regions stay in genomic order
+    		allRegions.sort(Comparator.comparingDouble(Region::getPvalue));
+    		for(Region region : allRegions.subList(0, Math.min(_topRegions, allRegions.size()))) {
+    			WriteTopRegion(writer, region);
+    		}
+    		writer.Flush();
+    		return;
+    	}
+    	
+    	var heap = new IndexMarkerHeap(indexMarkers.stream().mapToInt(x -> x.length).sum());
+    	for(int c = 0; c < chromosomes.size(); c++) {
+    		for(int ordinal : indexMarkers.get(c)) {
+    			heap.Add(c, ordinal, chromosomes.get(c).GetPvalue(ordinal));
+    		}
+    		_metrics.Count(RunMetrics.INDEX_CANDIDATES, indexMarkers.get(c).length);
+    	}
+    	heap.Heapify();
     	
-    	newRegion.setNumSigMarkers(entireRegionSet.stream()
-					.filter(p -> p.getPvalue() <= _indexPvalueThreshold)
-					.collect(Collectors.toList()).size());
+    	BitSet[] defInRegion = new BitSet[chromosomes.size()];
+    	List<Region> regions = new ArrayList<Region>(1);
+    	var statistics = new RegionStatistics(_indexPvalueThreshold, _suggestivePvalueThreshold);
+    	while(_resultSet.size() < _topRegions && !heap.IsEmpty()) {
+    		int c = heap.PeekChromosome();
+    		int candidate = heap.PeekOrdinal();
+    		heap.Poll();
+    		
+    		var workingChromosomeSet = chromosomes.get(c);
+    		if(defInRegion[c] == null) {
+    			defInRegion[c] = new BitSet(workingChromosomeSet.Size());
+    		}
+    		if(defInRegion[c].get(candidate)) {
+    			continue;
+    		}
+    		
+    		// Search from where a run in position order would have, so the region comes out the same
+    		int regionStart = FirstIndexMarkerOfChain(workingChromosomeSet, candidate);
+    		long traverseNanos = System.nanoTime();
+    		MarkerWindow entireRegionSet = TraverseSearch(workingChromosomeSet, workingChromosomeSet.GetPosition(regionStart));
+    		_metrics.AddTime(RunMetrics.TRAVERSE, System.nanoTime() - traverseNanos);
+    		if(!ContainsAll(defInRegion[c], entireRegionSet)) {
+    			defInRegion[c].set(entireRegionSet.From(), entireRegionSet.To());
+    			
+    			regions.clear();
+    			ConstructRegionAndAppendToResultSet(workingChromosomeSet, entireRegionSet, statistics, regions);
+    			WriteTopRegion(writer, regions.get(0));
+    		}
+    	}
+    	writer.Flush();
+    }
+    
+    private void WriteTopRegion(RegionWriter writer, Region region) throws IOException {
+    	var timer = _metrics.Start(RunMetrics.WRITE);
+    	try {
+    		region.setRegionIndex(_resultSet.size() + 1);
+    		_resultSet.add(region);
+    		writer.Write(region);
+    	}
+    	finally {
+    		timer.Stop();
+    	}
+    	_metrics.Count(RunMetrics.REGIONS, 1);
+    }
+    
+    // Suggestive markers no further apart than the search space form a chain, and a traverse search
+    // grows a region to the end of the chain its index marker is in. A run in position order starts
+    // that region at the first index marker of the chain, which this walks back to from any of its
+    // index markers. Costs the length of the chain.
+    private int FirstIndexMarkerOfChain(ChromosomeColumns workingChromosomeSet, int ordinal) {
+    	int[] suggestiveOrdinals = _suggestiveIndex.Get(workingChromosomeSet);
+    	int[] suggestivePositions = _suggestiveIndex.GetPositions(workingChromosomeSet);
+    	int first = ordinal;
+    	for(int i = Arrays.binarySearch(suggestiveOrdinals, ordinal); i > 0 
+    			&& (long) suggestivePositions[i] - suggestivePositions[i - 1] <= _searchSpace; i--) {
+    		if(workingChromosomeSet.GetPvalue(suggestiveOrdinals[i - 1]) <= _indexPvalueThreshold) {
+    			first = suggestiveOrdinals[i - 1];
+    		}
+    	}
+    	return first;
+    }
+
+    public List<Region> AnalyzeChromosome(ChromosomeColumns workingChromosomeSet) {
+    	List<Region> chromosomeResultSet = new ArrayList<Region>();
     	
+		// Markers are identified by their ordinal within the chromosome columns, so one bit per marker
+		// is enough to remember which of them already belong to a region.
+		BitSet defInRegion = new BitSet(workingChromosomeSet.Size());
+		// Reset for every region of the chromosome rather than allocated for each
+		var statistics = new RegionStatistics(_indexPvalueThreshold, _suggestivePvalueThreshold);
+		int[] IndexLevelMarkers = GetPositionsOfIndexMarkers(workingChromosomeSet);
+		_metrics.Count(RunMetrics.INDEX_CANDIDATES, IndexLevelMarkers.length);
 
-		newRegion.setNumSuggestiveMarkers(entireRegionSet.stream()
-							.filter(p -> p.getPvalue() <= _suggestivePvalueThreshold)
-							.collect(Collectors.toList()).size());
-		
-		newRegion.setNumTotalMarkers(entireRegionSet.size());
+		for(int candidate : IndexLevelMarkers){
+			// Candidates come in position order, so one that already sits inside an emitted region would
+			// traverse to a subset of that region and be dropped below. Skip it without searching.
+			if(defInRegion.get(candidate)) {
+				continue;
+			}
+			
+			if(Diagnostics.IsEnabled()) {
+				System.out.println(workingChromosomeSet.GetChromosome());
+			}
+			long traverseNanos = System.nanoTime();
+			MarkerWindow entireRegionSet = TraverseSearch(workingChromosomeSet, workingChromosomeSet.GetPosition(candidate));
+			_metrics.AddTime(RunMetrics.TRAVERSE, System.nanoTime() - traverseNanos);
+			if(!ContainsAll(defInRegion, entireRegionSet)) {
+				defInRegion.set(entireRegionSet.From(), entireRegionSet.To());
+				
+				
+				ConstructRegionAndAppendToResultSet(workingChromosomeSet, entireRegionSet, statistics, chromosomeResultSet);
+			}
+			
+			if(Diagnostics.IsEnabled()) {
+				System.out.println("---- ");
+			}
+		}
 		
-		Collections.sort(entireRegionSet, new Comparator<Marker>(){
-	   	     public int compare(Marker o1, Marker o2){
-	   	         if(o1.Position == o2.Position)
-	   	             return 0;
-	   	         return o1.Position > o2.Position ? -1 : 1;
-	   	     }
-	   	});
+		return chromosomeResultSet;
+    }
+
+	// A window is a run of ordinals, so it is covered when there is no clear bit inside it
+	private boolean ContainsAll(BitSet defInRegion, MarkerWindow entireRegionSet) {
+		return defInRegion.nextClearBit(entireRegionSet.From()) >= entireRegionSet.To();
+	}
+
+	// The statistics are reset by AddWindow, so the caller can hand in the same instance for every region
+	private void ConstructRegionAndAppendToResultSet(ChromosomeColumns workingChromosomeSet, MarkerWindow entireRegionSet,
+			RegionStatistics statistics, List<Region> resultSet) {
+		long startNanos = System.nanoTime();
+		statistics.AddWindow(workingChromosomeSet, entireRegionSet);
 		
-		newRegion.setRegionStop(entireRegionSet.get(0).Position);
-		newRegion.setSizeOfRegion();
-		newRegion.setRegionIndex(_resultSet.size() + 1);
+		if(Diagnostics.IsEnabled()) {
+			for(int ordinal = entireRegionSet.From(); ordinal < entireRegionSet.To(); ordinal++) {
+				if(workingChromosomeSet.GetPvalue(ordinal) <= _suggestivePvalueThreshold) {
+					System.out.println("Position: " + workingChromosomeSet.GetPosition(ordinal) + " Sugg P Val: " + workingChromosomeSet.GetPvalue(ordinal));
+				}
+			}
+		}
 		
-		_resultSet.add(newRegion);
+		resultSet.add(statistics.ToRegion(workingChromosomeSet));
+		_metrics.AddTime(RunMetrics.REGION_BUILD, System.nanoTime() - startNanos);
 	}
 
-	private Marker GetMarkerWithLowestPValue(List<Marker> entireRegionSet) {
-		Collections.sort(entireRegionSet, new Comparator<Marker>(){
-   	     public int compare(Marker o1, Marker o2){
-   	         if(o1.Pvalue == o2.Pvalue)
-   	             return 0;
-   	         return o1.Pvalue < o2.Pvalue ? -1 : 1;
-   	     }
-   	});
-		return entireRegionSet.get(0);
+	private int[] GetPositionsOfIndexMarkers(ChromosomeColumns workingChromosomeSet) {
+		 return IndexMarkerCandidates(workingChromosomeSet)
+				.filter(x -> workingChromosomeSet.GetPvalue(x) <= _indexPvalueThreshold)
+				.toArray();
 	}
 
-	private List<Marker> GetPositionsOfIndexMarkers(List<Marker> workingChromosomeSet) {
-		 return workingChromosomeSet.stream()
-				.filter(x -> x.getPvalue() <= _indexPvalueThreshold)
-				.collect(Collectors.toList());
+	// Index markers are suggestive markers too, so only the suggestive ones need to be looked at,
+	// unless the index threshold is the looser of the two.
+	private IntStream IndexMarkerCandidates(ChromosomeColumns workingChromosomeSet) {
+		if(_indexPvalueThreshold <= _suggestivePvalueThreshold) {
+			return Arrays.stream(_suggestiveIndex.Get(workingChromosomeSet));
+		}
+		return IntStream.range(0, workingChromosomeSet.Size());
 	}
 
-	private List<Marker> TraverseSearch(List<Marker> workingChromosomeSet, int indexPosition) {
+	private MarkerWindow TraverseSearch(ChromosomeColumns workingChromosomeSet, int indexPosition) {
 		//While there are results within +/- the searchSpace under the suggestive value threshold, keep expanding your search
 		
-		System.out.println("Traverse search: ");
+		if(Diagnostics.IsEnabled()) {
+			System.out.println("Traverse search: ");
+		}
+		_metrics.Count(RunMetrics.TRAVERSE_SEARCHES, 1);
 		// Minus
 		int startSearchStart = SeekStartPosition(workingChromosomeSet, indexPosition); 
 		// Plus
 		int stopSearchStop = SeekStopPosition(workingChromosomeSet, indexPosition); 
-		System.out.println("Start: " + startSearchStart); 
-		System.out.println("Stop: " + stopSearchStop); 
+		if(Diagnostics.IsEnabled()) {
+			System.out.println("Start: " + startSearchStart); 
+			System.out.println("Stop: " + stopSearchStop); 
+		}
 		
-		return workingChromosomeSet.stream()
-				.filter(x -> x.getPosition() >= startSearchStart && x.getPosition() <= stopSearchStop)
-				.collect(Collectors.toList());
+		return workingChromosomeSet.GetPositionIndex().Between(startSearchStart, stopSearchStop);
 	}
 	
-	private int SeekStopPosition(List<Marker> workingChromosomeSet, int indexPosition) {
+	private int SeekStopPosition(ChromosomeColumns workingChromosomeSet, int indexPosition) {
 		
 		int stopSearchStop = indexPosition; 
 		int previousSearchStop = 0;
 		
 		
+		int[] suggestivePositions = _suggestiveIndex.GetPositions(workingChromosomeSet);
+		var iterations = _metrics.Counter(RunMetrics.TRAVERSE_ITERATIONS);
 		boolean keepGoingDown = true; 
 		while(keepGoingDown) {
+			iterations.increment();
 			var stopping = ExpandPlusDirection(workingChromosomeSet, stopSearchStop); 
 			
-			var suggestive = stopping.stream()
-					.filter(y -> y.getPvalue() <= _suggestivePvalueThreshold)
-					.collect(Collectors.toList());
-			
-			
-			Collections.sort(suggestive , new Comparator<Marker>(){
-		   	     public int compare(Marker o1, Marker o2){
-		   	    	return o1.Position > o2.Position ? -1 :(o1.Position < o2.Position ? 1 : 0);
-		   	     }
-		       	});
-			
-			
-			stopSearchStop = suggestive.get(0).Position;
-
-			if(suggestive.size() > 0 && previousSearchStop != stopSearchStop) {
-				stopSearchStop = suggestive.get(0).Position;
+			// The furthest suggestive marker in the window is the last one the lookup returned
+			if(!stopping.IsEmpty()) {
+				stopSearchStop = suggestivePositions[stopping.To() - 1];
 			}
-			else {
+
+			if(stopping.IsEmpty() || previousSearchStop == stopSearchStop) {
 				keepGoingDown = false; 
 			}
 			
@@ -196,21 +484,21 @@ public class RecursiveGeneAnalyzer {
 		return stopSearchStop; 	
 	}
 	
-	private int SeekStartPosition(List<Marker> workingChromosomeSet, int indexPosition) {
+	private int SeekStartPosition(ChromosomeColumns workingChromosomeSet, int indexPosition) {
 		
 		int startSearchStart = indexPosition; 
 		int previousSearchStart = 0;
 		
+		int[] suggestivePositions = _suggestiveIndex.GetPositions(workingChromosomeSet);
+		var iterations = _metrics.Counter(RunMetrics.TRAVERSE_ITERATIONS);
 		boolean keepGoingUp = true; 
 		while(keepGoingUp) {
+			iterations.increment();
 			var starting =  ExpandMinusDirection(workingChromosomeSet, startSearchStart);
 			
-			var suggestive = starting.stream()
-					.filter(y -> y.getPvalue() <= _suggestivePvalueThreshold)
-					.collect(Collectors.toList());
-		
-			if(suggestive.size() > 0 && previousSearchStart != startSearchStart) {
-				startSearchStart = suggestive.get(0).Position;
+			// The first suggestive marker in the window is the first one the lookup returned
+			if(!starting.IsEmpty() && previousSearchStart != startSearchStart) {
+				startSearchStart = suggestivePositions[starting.From()];
 				
 			}
 			else {
@@ -223,108 +511,71 @@ public class RecursiveGeneAnalyzer {
 		return startSearchStart; 
 	}
 	
-	private List<Marker>ExpandPlusDirection(List<Marker> workingChromosomeSet, int position){
-		return workingChromosomeSet
-		.stream()
-		.filter(y -> y.getPosition() >= position && 
-				y.getPosition() <= position + _searchSpace )
-		.collect(Collectors.toList());
+	// Both expansions only look at suggestive markers, the only ones that can move a boundary. The
+	// window they return indexes the chromosome's suggestive markers in the SuggestiveMarkerIndex.
+	private MarkerWindow ExpandPlusDirection(ChromosomeColumns workingChromosomeSet, int position){
+		return _suggestiveIndex.Between(workingChromosomeSet, position, position + _searchSpace);
 	}
 	
-	private List<Marker>ExpandMinusDirection(List<Marker> workingChromosomeSet, int position){
-		return workingChromosomeSet
-		.stream()
-		.filter(y -> y.getPosition() <= position && 
-				y.getPosition() >= position - _searchSpace )
-		.collect(Collectors.toList());
+	private MarkerWindow ExpandMinusDirection(ChromosomeColumns workingChromosomeSet, int position){
+		return _suggestiveIndex.Between(workingChromosomeSet, position - _searchSpace, position);
 	}
 
-	private boolean ShouldRunFurtherAnalysis(List<Marker> workingChromosomeSet) {
-		return workingChromosomeSet.stream()
-											.filter(x -> x.getPvalue() <= _indexPvalueThreshold)
-											.collect(Collectors.toList()).size() > 0; 
+	private boolean ShouldRunFurtherAnalysis(ChromosomeColumns workingChromosomeSet) {
+		return IndexMarkerCandidates(workingChromosomeSet)
+				.anyMatch(x -> workingChromosomeSet.GetPvalue(x) <= _indexPvalueThreshold); 
 	}
 
 	public void UploadDataset() {
     	
-    	List<String> dataset = null;
-    	try (Stream<String> lines = Files.lines(_inputFileLocation)) 
-    	{
-    		System.out.println("Found file and loading...");
-    		dataset  = lines.collect(Collectors.toList());
+    	if(_useCache) {
+    		var loadTimer = _metrics.Start(RunMetrics.LOAD);
+    		try {
+    			_totalDataSet = MarkerStoreCache.TryLoad(_inputFileLocation, _offHeap);
+    		}
+    		catch (IOException e) {
+    			System.out.println("Could not read the marker cache, parsing the input instead: " + e);
+    		}
+    		finally {
+    			loadTimer.Stop();
+    		}
+    		if(_totalDataSet != null) {
+    			Diagnostics.Print("Loaded markers from " + MarkerStoreCache.SidecarFor(_inputFileLocation));
+    			_metrics.Count(RunMetrics.MARKERS, _totalDataSet.Size());
+    			return;
+    		}
+    	}
+    	
+    	var loadTimer = _metrics.Start(RunMetrics.LOAD);
+    	try {
+    		Diagnostics.Print("Found file and loading...");
+    		_totalDataSet = _bufferPool != null 
+    				? MarkerLoader.Load(_inputFileLocation, _parallelism, _bufferPool) 
+    				: MarkerLoader.Load(_inputFileLocation, _parallelism, _offHeap);
     	} 
     	catch (Exception e) {
     		System.out.println(e);
     	}
+    	finally {
+    		loadTimer.Stop();
+    	}
     	
-    	dataset.remove(0); 
-    	
-    	_totalDataSet = TransformInputFileToListOfObjects(dataset);
-    }
-
-	private List<Marker> TransformInputFileToListOfObjects(List<String> dataset) {
-		List<Marker> filedata = new ArrayList<Marker>();
-		for(String line : dataset) {
-			var wordsArray = line.split("\t");
-			
-			var record = new Marker();
-            record.Name = wordsArray[0];
-            record.Chromosome = wordsArray[1];
-            record.Position = Integer.parseInt(wordsArray[2]);
-            
-            try {
-                /* We suspect that this block of statement can throw 
-                 * exception when p-value is NA
-                 */
-                Integer.parseInt(record.Chromosome);
-            	record.setPvalue(Double.parseDouble(wordsArray[wordsArray.length-1]));
-                filedata.add(record);
-
-             }
-             catch (NumberFormatException e) { 
-                System.out.println("Could not parse pvalue for " + wordsArray[3]);
-             }
-		}
-		
-    	var cleaned = filedata.stream().filter(x -> !x.Chromosome.isEmpty()).toArray(Marker[]::new);
-    	var noBlanks = Arrays.asList(cleaned);
-    	
-		return noBlanks; 
-	}
-	
-	private void BuildResultFile()throws IOException {
-    	File fout = new File(_outputFileLocation);
-    	FileOutputStream fos = new FileOutputStream(fout);
-     
-    	BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(fos));
-     
-    	var header = new String[] { "Region", "MarkerName", "Chr", "Position", "P-value", "RegionStart",
-                "RegionStop", "NumSigMarkers", "NumSuggestiveMarkers",  "NumTotalMarkers", "SizeOfRegion" };
-    	
-    	bw.write(String.join("\t", header));
-    	bw.newLine();
+    	var partitionTimer = _metrics.Start(RunMetrics.PARTITION);
+    	try {
+    		_totalDataSet.Seal();
+    	}
+    	finally {
+    		partitionTimer.Stop();
+    	}
+    	_metrics.Count(RunMetrics.MARKERS, _totalDataSet.Size());
     	
-        for(Region result : _resultSet)
-        {
-            var arrayResult = new String[]
-            {
-                String.valueOf(result.getRegionIndex()),
-                result.getMarkerName(),
-                String.valueOf(result.getChr()),
-                String.valueOf(result.getPosition()),
-                String.valueOf(result.getPvalue()),
-                String.valueOf(result.getRegionStart()),
-                String.valueOf(result.getRegionStop()),
-                String.valueOf(result.getNumSigMarkers()),
-                String.valueOf(result.getNumSuggestiveMarkers()),
-                String.valueOf(result.getNumTotalMarkers()),
-                String.valueOf(result.getSizeOfRegion()),
-            };
-            
-            bw.write(String.join("\t", arrayResult));
-            bw.newLine();
-        }
-     
-    	bw.close();
+    	if(_useCache) {
+    		try {
+    			MarkerStoreCache.Write(_inputFileLocation, _totalDataSet);
+    		}
+    		catch (IOException e) {
+    			System.out.println("Could not write the marker cache: " + e);
+    		}
+    	}
     }
 }
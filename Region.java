@@ -3,6 +3,7 @@ public class Region {
     public int RegionIndex;
     public String MarkerName;
     public int Chr;
+    public String Chromosome;
     public double Pvalue;
     public int Position;
     public int RegionStart;
@@ -46,6 +47,14 @@ public class Region {
         return this.Chr;
     }
 
+    public void setChromosome(String name) {
+        this.Chromosome = name;
+    }
+
+    public String getChromosome() {
+        return this.Chromosome;
+    }
+
     public void setPvalue(double name) {
         this.Pvalue = name;
     }
@@ -0,0 +1,79 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Emitted regions per chromosome, ordered by RegionStart, so overlap queries, inserts and merges
+// cost O(log r) plus the regions they return instead of a scan over every region. The longest
+// region seen on a chromosome bounds how far before a query an overlapping region can start.
+public class RegionIntervalMap {
+
+	static final Comparator<Region> BY_START = Comparator.comparingInt(Region::getRegionStart)
+			.thenComparingInt(Region::getRegionIndex);
+
+	Map<String, TreeSet<Region>> _regions;
+	Map<String, Integer> _longestRegion;
+
+	public RegionIntervalMap() {
+		_regions = new HashMap<String, TreeSet<Region>>();
+		_longestRegion = new HashMap<String, Integer>();
+	}
+
+	// The region needs its RegionIndex set, it keeps regions with the same start apart
+	public void Insert(Region region) {
+		_regions.computeIfAbsent(region.getChromosome(), x -> new TreeSet<Region>(BY_START)).add(region);
+		_longestRegion.merge(region.getChromosome(), region.getRegionStop() - region.getRegionStart(), Math::max);
+	}
+
+	// Of the regions starting within [fromStart, toStart], the one emitted first
+	public Region FirstStartingBetween(String chromosome, int fromStart, int toStart) {
+		var regions = _regions.get(chromosome);
+		if (regions == null || fromStart > toStart) {
+			return null;
+		}
+
+		Region first = null;
+		for (Region region : regions.subSet(Probe(fromStart, Integer.MIN_VALUE), true, Probe(toStart, Integer.MAX_VALUE), true)) {
+			if (first == null || region.getRegionIndex() < first.getRegionIndex()) {
+				first = region;
+			}
+		}
+		return first;
+	}
+
+	// Regions sharing at least one position with [start, stop], in order of their start
+	public List<Region> Overlapping(String chromosome, int start, int stop) {
+		List<Region> overlapping = new ArrayList<Region>();
+		var regions = _regions.get(chromosome);
+		if (regions == null) {
+			return overlapping;
+		}
+
+		int earliestStart = (int) Math.max(Integer.MIN_VALUE, (long) start - _longestRegion.get(chromosome));
+		for (Region region : regions.subSet(Probe(earliestStart, Integer.MIN_VALUE), true, Probe(stop, Integer.MAX_VALUE), true)) {
+			if (region.getRegionStop() >= start) {
+				overlapping.add(region);
+			}
+		}
+		return overlapping;
+	}
+
+	// Widens the region so it also covers [start, stop]
+	public void Merge(Region region, int start, int stop) {
+		var regions = _regions.get(region.getChromosome());
+		regions.remove(region);
+		region.setRegionStart(Math.min(region.getRegionStart(), start));
+		region.setRegionStop(Math.max(region.getRegionStop(), stop));
+		regions.add(region);
+		_longestRegion.merge(region.getChromosome(), region.getRegionStop() - region.getRegionStart(), Math::max);
+	}
+
+	private static Region Probe(int regionStart, int regionIndex) {
+		var probe = new Region();
+		probe.setRegionStart(regionStart);
+		probe.setRegionIndex(regionIndex);
+		return probe;
+	}
+}
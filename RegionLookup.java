@@ -0,0 +1,67 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+// Answers interval, point and nearest region queries against the result of an earlier run, through
+// its RegionQueryIndex. The matching regions are printed to standard output in the chosen format,
+// under a single header for all queries.
+public class RegionLookup {
+
+	// java UniqueRegions query output.txt chr1:1000000-2000000 chr2:150000 ... [--nearest] [--format tsv|bed|binary]
+	//
+	// A start-stop range finds every region overlapping it, a single position every region containing
+	// it, or with --nearest the one region closest to it.
+	public static void main(String[] args) {
+		int firstOption = 0;
+		while (firstOption < args.length && !args[firstOption].startsWith("--")) {
+			firstOption++;
+		}
+		if (firstOption < 2) {
+			throw new IllegalArgumentException("Expected a result file followed by at least one chromosome:start-stop or chromosome:position");
+		}
+		var options = RunOptions.Parse(args, firstOption);
+
+		try {
+			var index = RegionQueryIndex.Load(Paths.get(args[0]));
+			List<Region> regions = new ArrayList<Region>();
+			for (int i = 1; i < firstOption; i++) {
+				regions.addAll(Query(index, args[i], options.Nearest));
+			}
+			try (RegionWriter writer = options.Format.Open(System.out, options.WriteBufferSize)) {
+				writer.WriteAll(regions);
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	// chromosome:start-stop or chromosome:position, positions may have thousands separators
+	static List<Region> Query(RegionQueryIndex index, String query, boolean nearest) {
+		int colon = query.lastIndexOf(':');
+		if (colon <= 0) {
+			throw new IllegalArgumentException("Could not parse query " + query + ", expected chromosome:start-stop or chromosome:position");
+		}
+		var chromosome = query.substring(0, colon);
+		var range = query.substring(colon + 1).replace(",", "");
+		int dash = range.indexOf('-', 1);
+		if (dash > 0) {
+			if (nearest) {
+				throw new IllegalArgumentException("--nearest takes a single position, not the range " + query);
+			}
+			return index.Overlapping(chromosome, Integer.parseInt(range.substring(0, dash)), Integer.parseInt(range.substring(dash + 1)));
+		}
+
+		int position = Integer.parseInt(range);
+		if (!nearest) {
+			return index.At(chromosome, position);
+		}
+		List<Region> regions = new ArrayList<Region>();
+		var region = index.Nearest(chromosome, position);
+		if (region != null) {
+			regions.add(region);
+		}
+		return regions;
+	}
+}
@@ -0,0 +1,224 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Read-only index over the regions of a finished run, for looking regions and their lead markers up
+// by genomic interval without running the analysis again. Per chromosome the regions are sorted by
+// start and split into nesting levels, a region going to a deeper level than any region that
+// contains it from further left. Within a level the stops are then sorted as well as the starts,
+// so the regions of a level overlapping a query are a contiguous range found with two binary
+// searches. An overlap query costs O(d log r) for regions nested d deep, plus the regions returned;
+// the regions of one run rarely nest, so d is usually 1. Nearest uses a running maximum of the
+// stops instead and costs O(log r).
+//
+// An index is persisted as a binary result file next to the output, output.txt.regions, which
+// RegionReader reads back. Chromosomes can be named in any spelling ChromosomeDictionary accepts.
+public class RegionQueryIndex {
+
+	static final String EXTENSION = ".regions";
+
+	static final Comparator<Region> BY_START = Comparator.comparingInt(Region::getRegionStart)
+			.thenComparingInt(Region::getRegionStop)
+			.thenComparingInt(Region::getRegionIndex);
+
+	final Map<String, ChromosomeRegions> _chromosomes;
+
+	public RegionQueryIndex(List<Region> regions) {
+		Map<String, List<Region>> byChromosome = new HashMap<String, List<Region>>();
+		for (Region region : regions) {
+			byChromosome.computeIfAbsent(ChromosomeDictionary.Canonical(region.getChromosome()), x -> new ArrayList<Region>()).add(region);
+		}
+		_chromosomes = new HashMap<String, ChromosomeRegions>();
+		byChromosome.forEach((chromosome, chromosomeRegions) -> _chromosomes.put(chromosome, new ChromosomeRegions(chromosomeRegions)));
+	}
+
+	public static Path SidecarFor(Path output) {
+		return output.resolveSibling(output.getFileName() + EXTENSION);
+	}
+
+	// Persists the regions of a run next to its output
+	public static void Write(Path output, List<Region> regions) throws IOException {
+		try (RegionWriter writer = ResultFormat.BINARY.Open(SidecarFor(output), RegionWriter.DEFAULT_BUFFER_SIZE)) {
+			writer.WriteAll(regions);
+		}
+	}
+
+	// The index persisted next to the output, or, when there is none or it is older than the output,
+	// one built from the output itself, which works for TSV and binary output.
+	public static RegionQueryIndex Load(Path output) throws IOException {
+		Path sidecar = SidecarFor(output);
+		if (Files.exists(sidecar) && (!Files.exists(output)
+				|| Files.getLastModifiedTime(sidecar).compareTo(Files.getLastModifiedTime(output)) >= 0)) {
+			return new RegionQueryIndex(RegionReader.Read(sidecar));
+		}
+		return new RegionQueryIndex(RegionReader.Read(output));
+	}
+
+	// Regions sharing at least one position with [start, stop], in order of their start
+	public List<Region> Overlapping(String chromosome, int start, int stop) {
+		List<Region> overlapping = new ArrayList<Region>();
+		var regions = _chromosomes.get(ChromosomeDictionary.Canonical(chromosome));
+		if (regions == null || start > stop) {
+			return overlapping;
+		}
+		int[] found = new int[0];
+		int count = 0;
+		int levelsFound = 0;
+		for (Level level : regions._levels) {
+			// Regions of the level before from all stop before start, regions from to on all start after stop
+			int from = FirstAtLeast(level._stops, start);
+			int to = FirstAtLeast(level._starts, stop + 1L);
+			if (from >= to) {
+				continue;
+			}
+			levelsFound++;
+			if (count + to - from > found.length) {
+				found = Arrays.copyOf(found, Math.max(2 * found.length, count + to - from));
+			}
+			System.arraycopy(level._regions, from, found, count, to - from);
+			count += to - from;
+		}
+		// Each level lists its regions in start order, so one level needs no sorting
+		if (levelsFound > 1) {
+			Arrays.sort(found, 0, count);
+		}
+		for (int i = 0; i < count; i++) {
+			overlapping.add(regions._regions[found[i]]);
+		}
+		return overlapping;
+	}
+
+	// Regions containing the position
+	public List<Region> At(String chromosome, int position) {
+		return Overlapping(chromosome, position, position);
+	}
+
+	// A region containing the position or, if there is none, the region closest to it, the one
+	// before it when two are equally close. Null when the chromosome has no regions.
+	public Region Nearest(String chromosome, int position) {
+		var regions = _chromosomes.get(ChromosomeDictionary.Canonical(chromosome));
+		if (regions == null) {
+			return null;
+		}
+		int after = regions.FirstStartingAfter(position);
+		// Of the regions starting at or before the position, the one reaching furthest
+		Region before = after > 0 ? regions._regions[regions._furthest[after - 1]] : null;
+		if (before != null && before.getRegionStop() >= position) {
+			return before;
+		}
+		Region next = after < regions._regions.length ? regions._regions[after] : null;
+		if (before == null) {
+			return next;
+		}
+		if (next == null || (long) position - before.getRegionStop() <= (long) next.getRegionStart() - position) {
+			return before;
+		}
+		return next;
+	}
+
+	public int Size() {
+		int size = 0;
+		for (ChromosomeRegions regions : _chromosomes.values()) {
+			size += regions._regions.length;
+		}
+		return size;
+	}
+
+	static class ChromosomeRegions {
+
+		final Region[] _regions;
+		final int[] _starts;
+		// Largest stop among the regions up to and including i, and the region it belongs to
+		final int[] _maxStops;
+		final int[] _furthest;
+		final List<Level> _levels;
+
+		ChromosomeRegions(List<Region> regions) {
+			_regions = regions.toArray(new Region[0]);
+			Arrays.sort(_regions, BY_START);
+			_starts = new int[_regions.length];
+			_maxStops = new int[_regions.length];
+			_furthest = new int[_regions.length];
+			for (int i = 0; i < _regions.length; i++) {
+				_starts[i] = _regions[i].getRegionStart();
+				boolean further = i == 0 || _regions[i].getRegionStop() > _maxStops[i - 1];
+				_maxStops[i] = further ? _regions[i].getRegionStop() : _maxStops[i - 1];
+				_furthest[i] = further ? i : _furthest[i - 1];
+			}
+
+			// A region goes to the first level whose last region stops no later than it does, which keeps
+			// the stops of every level in order
+			List<int[]> levels = new ArrayList<int[]>();
+			int[] levelSizes = new int[_regions.length];
+			for (int i = 0; i < _regions.length; i++) {
+				int level = 0;
+				while (level < levels.size() && _regions[levels.get(level)[levelSizes[level] - 1]].getRegionStop() > _regions[i].getRegionStop()) {
+					level++;
+				}
+				if (level == levels.size()) {
+					levels.add(new int[_regions.length]);
+				}
+				levels.get(level)[levelSizes[level]++] = i;
+			}
+			_levels = new ArrayList<Level>(levels.size());
+			for (int level = 0; level < levels.size(); level++) {
+				_levels.add(new Level(_regions, Arrays.copyOf(levels.get(level), levelSizes[level])));
+			}
+		}
+
+		int FirstStartingAfter(int position) {
+			int low = 0;
+			int high = _starts.length;
+			while (low < high) {
+				int middle = (low + high) >>> 1;
+				if (_starts[middle] <= position) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			return low;
+		}
+
+	}
+
+	// One nesting level of a chromosome, as indices into its start ordered regions, with their starts
+	// and stops side by side. Both are sorted.
+	static class Level {
+
+		final int[] _regions;
+		final int[] _starts;
+		final int[] _stops;
+
+		Level(Region[] regions, int[] indices) {
+			_regions = indices;
+			_starts = new int[indices.length];
+			_stops = new int[indices.length];
+			for (int i = 0; i < indices.length; i++) {
+				_starts[i] = regions[indices[i]].getRegionStart();
+				_stops[i] = regions[indices[i]].getRegionStop();
+			}
+		}
+	}
+
+	// The first index whose value is at least the given one, the length when there is none
+	private static int FirstAtLeast(int[] sorted, long value) {
+		int low = 0;
+		int high = sorted.length;
+		while (low < high) {
+			int middle = (low + high) >>> 1;
+			if (sorted[middle] < value) {
+				low = middle + 1;
+			} else {
+				high = middle;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,102 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+// Reads a result file written by TsvRegionWriter or BinaryRegionWriter back into regions, telling
+// the two apart by the binary magic number. BED output drops most of the columns and cannot be read.
+public class RegionReader {
+
+	public static List<Region> Read(Path path) throws IOException {
+		try (InputStream input = new BufferedInputStream(Files.newInputStream(path), RegionWriter.DEFAULT_BUFFER_SIZE)) {
+			input.mark(4);
+			byte[] magic = input.readNBytes(4);
+			input.reset();
+			if (magic.length == 4 && ((magic[0] & 0xff) << 24 | (magic[1] & 0xff) << 16 | (magic[2] & 0xff) << 8 | (magic[3] & 0xff)) == BinaryRegionWriter.MAGIC) {
+				return ReadBinary(new DataInputStream(input), path);
+			}
+			return ReadTsv(new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)), path);
+		}
+	}
+
+	private static List<Region> ReadTsv(BufferedReader reader, Path path) throws IOException {
+		var header = reader.readLine();
+		if (header == null || !header.equals(TsvRegionWriter.HEADER)) {
+			throw new IOException(path + " is not a result file, its header is " + header);
+		}
+
+		List<Region> regions = new ArrayList<Region>();
+		String line;
+		while ((line = reader.readLine()) != null) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			var fields = line.split("\t");
+			if (fields.length != 11) {
+				throw new IOException("Could not parse region " + line + " in " + path);
+			}
+			var region = new Region();
+			region.setRegionIndex(Integer.parseInt(fields[0]));
+			region.setMarkerName(fields[1]);
+			region.setChromosome(fields[2]);
+			region.setChr(ChromosomeDictionary.NumberOf(fields[2]));
+			region.setPosition(Integer.parseInt(fields[3]));
+			region.setPvalue(Double.parseDouble(fields[4]));
+			region.setRegionStart(Integer.parseInt(fields[5]));
+			region.setRegionStop(Integer.parseInt(fields[6]));
+			region.setNumSigMarkers(Integer.parseInt(fields[7]));
+			region.setNumSuggestiveMarkers(Integer.parseInt(fields[8]));
+			region.setNumTotalMarkers(Integer.parseInt(fields[9]));
+			region.setSizeOfRegion();
+			regions.add(region);
+		}
+		return regions;
+	}
+
+	private static List<Region> ReadBinary(DataInputStream input, Path path) throws IOException {
+		input.readInt();
+		int version = input.readInt();
+		if (version != BinaryRegionWriter.VERSION) {
+			throw new IOException(path + " has binary result format version " + version + ", expected " + BinaryRegionWriter.VERSION);
+		}
+
+		List<Region> regions = new ArrayList<Region>();
+		while (true) {
+			int regionIndex;
+			try {
+				regionIndex = input.readInt();
+			}
+			catch (EOFException e) {
+				return regions;
+			}
+			var region = new Region();
+			region.setRegionIndex(regionIndex);
+			region.setChromosome(ReadString(input));
+			region.setChr(ChromosomeDictionary.NumberOf(region.getChromosome()));
+			region.setPosition(input.readInt());
+			region.setPvalue(Double.longBitsToDouble(input.readLong()));
+			region.setRegionStart(input.readInt());
+			region.setRegionStop(input.readInt());
+			region.setNumSigMarkers(input.readInt());
+			region.setNumSuggestiveMarkers(input.readInt());
+			region.setNumTotalMarkers(input.readInt());
+			region.setMarkerName(ReadString(input));
+			region.setSizeOfRegion();
+			regions.add(region);
+		}
+	}
+
+	private static String ReadString(DataInputStream input) throws IOException {
+		byte[] bytes = new byte[input.readUnsignedShort()];
+		input.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
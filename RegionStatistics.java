@@ -0,0 +1,107 @@
+// Everything a Region reports about its markers, gathered in one pass over a window that is in
+// position order: the lead marker, start, stop and the significant, suggestive and total counts.
+// An instance is reset and reused from one region to the next, so building a region allocates
+// nothing but the Region itself and its lead marker.
+public class RegionStatistics {
+
+	final double _indexPvalueThreshold;
+	final double _suggestivePvalueThreshold;
+
+	int _leadOrdinal;
+	double _leadPvalue;
+	int _regionStart;
+	int _regionStop;
+	int _numSigMarkers;
+	int _numSuggestiveMarkers;
+	int _numTotalMarkers;
+
+	public RegionStatistics(double indexPvalueThreshold, double suggestivePvalueThreshold) {
+		_indexPvalueThreshold = indexPvalueThreshold;
+		_suggestivePvalueThreshold = suggestivePvalueThreshold;
+		Reset();
+	}
+
+	public void Reset() {
+		_leadOrdinal = -1;
+		_leadPvalue = Double.NaN;
+		_numSigMarkers = 0;
+		_numSuggestiveMarkers = 0;
+		_numTotalMarkers = 0;
+	}
+
+	// Markers have to be added in position order. Of several markers with the lowest p-value the
+	// first one added becomes the lead.
+	public void Add(int ordinal, int position, double pvalue) {
+		if (_numTotalMarkers == 0) {
+			_regionStart = position;
+		}
+		_regionStop = position;
+		if (_leadOrdinal < 0 || pvalue < _leadPvalue) {
+			_leadOrdinal = ordinal;
+			_leadPvalue = pvalue;
+		}
+		if (pvalue <= _indexPvalueThreshold) {
+			_numSigMarkers++;
+		}
+		if (pvalue <= _suggestivePvalueThreshold) {
+			_numSuggestiveMarkers++;
+		}
+		_numTotalMarkers++;
+	}
+
+	public void AddWindow(ChromosomeColumns chromosome, MarkerWindow window) {
+		Reset();
+		for (int ordinal = window.From(); ordinal < window.To(); ordinal++) {
+			Add(ordinal, chromosome.GetPosition(ordinal), chromosome.GetPvalue(ordinal));
+		}
+	}
+
+	public boolean IsEmpty() {
+		return _numTotalMarkers == 0;
+	}
+
+	public int GetLeadOrdinal() {
+		return _leadOrdinal;
+	}
+
+	public int GetRegionStart() {
+		return _regionStart;
+	}
+
+	public int GetRegionStop() {
+		return _regionStop;
+	}
+
+	public int GetNumSigMarkers() {
+		return _numSigMarkers;
+	}
+
+	public int GetNumSuggestiveMarkers() {
+		return _numSuggestiveMarkers;
+	}
+
+	public int GetNumTotalMarkers() {
+		return _numTotalMarkers;
+	}
+
+	// The lead marker is the only one that is ever materialised as an object
+	public Region ToRegion(ChromosomeColumns chromosome) {
+		return ToRegion(chromosome.ToMarker(_leadOrdinal));
+	}
+
+	public Region ToRegion(Marker leadMarker) {
+		var newRegion = new Region();
+		newRegion.setChromosome(leadMarker.getChromosome());
+		newRegion.setChr(ChromosomeDictionary.NumberOf(leadMarker.getChromosome()));
+		newRegion.setMarkerName(leadMarker.getName());
+		newRegion.setPosition(leadMarker.getPosition());
+		newRegion.setPvalue(leadMarker.getPvalue());
+		newRegion.setRegionStart(_regionStart);
+		newRegion.setRegionStop(_regionStop);
+		newRegion.setNumSigMarkers(_numSigMarkers);
+		newRegion.setNumSuggestiveMarkers(_numSuggestiveMarkers);
+		newRegion.setNumTotalMarkers(_numTotalMarkers);
+		newRegion.setSizeOfRegion();
+		return newRegion;
+	}
+}
@@ -0,0 +1,132 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+// Writes regions to a result file in one of the ResultFormat layouts. Fields are encoded straight
+// into one byte buffer, so a region costs no String per column, and the buffer only goes to the
+// file when it is full or when Flush is called. Analyzers flush after every chromosome, which puts
+// a chromosome's regions on disk as soon as it is finished.
+public abstract class RegionWriter implements Closeable {
+
+	public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+	final OutputStream _output;
+	final byte[] _buffer;
+	int _count;
+
+	// Room for the longest int or long
+	private final byte[] _digits = new byte[20];
+
+	protected RegionWriter(OutputStream output, int bufferSize) {
+		if (bufferSize < 64) {
+			throw new IllegalArgumentException("Result buffer must be at least 64 bytes, got " + bufferSize);
+		}
+		_output = output;
+		_buffer = new byte[bufferSize];
+	}
+
+	public abstract void Write(Region region) throws IOException;
+
+	public void WriteAll(List<Region> regions) throws IOException {
+		for (Region region : regions) {
+			Write(region);
+		}
+	}
+
+	public void Flush() throws IOException {
+		if (_count > 0) {
+			_output.write(_buffer, 0, _count);
+			_count = 0;
+		}
+		_output.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			Flush();
+		}
+		finally {
+			_output.close();
+		}
+	}
+
+	protected void Reserve(int bytes) throws IOException {
+		if (_count + bytes > _buffer.length) {
+			_output.write(_buffer, 0, _count);
+			_count = 0;
+		}
+	}
+
+	protected void PutByte(int value) throws IOException {
+		Reserve(1);
+		_buffer[_count++] = (byte) value;
+	}
+
+	protected void PutBytes(byte[] source, int offset, int length) throws IOException {
+		while (length > 0) {
+			Reserve(1);
+			int chunk = Math.min(length, _buffer.length - _count);
+			System.arraycopy(source, offset, _buffer, _count, chunk);
+			_count += chunk;
+			offset += chunk;
+			length -= chunk;
+		}
+	}
+
+	// ASCII text is copied character by character, anything else is encoded as UTF-8 first
+	protected void PutText(String text) throws IOException {
+		int length = text.length();
+		for (int i = 0; i < length; i++) {
+			if (text.charAt(i) >= 0x80) {
+				byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+				PutBytes(encoded, 0, encoded.length);
+				return;
+			}
+		}
+		int i = 0;
+		while (i < length) {
+			Reserve(1);
+			int end = Math.min(length, i + _buffer.length - _count);
+			for (; i < end; i++) {
+				_buffer[_count++] = (byte) text.charAt(i);
+			}
+		}
+	}
+
+	// Same digits as String.valueOf(long)
+	protected void PutDecimal(long value) throws IOException {
+		Reserve(_digits.length);
+		if (value < 0) {
+			_buffer[_count++] = '-';
+		}
+		int digits = 0;
+		do {
+			_digits[digits++] = (byte) ('0' + Math.abs(value % 10));
+			value /= 10;
+		} while (value != 0);
+		while (digits > 0) {
+			_buffer[_count++] = _digits[--digits];
+		}
+	}
+
+	// Doubles keep the exact text of String.valueOf(double), which downstream tools already parse.
+	protected void PutDecimal(double value) throws IOException {
+		PutText(Double.toString(value));
+	}
+
+	protected void PutInt(int value) throws IOException {
+		Reserve(4);
+		_buffer[_count++] = (byte) (value >>> 24);
+		_buffer[_count++] = (byte) (value >>> 16);
+		_buffer[_count++] = (byte) (value >>> 8);
+		_buffer[_count++] = (byte) value;
+	}
+
+	protected void PutLong(long value) throws IOException {
+		PutInt((int) (value >>> 32));
+		PutInt((int) value);
+	}
+}
@@ -0,0 +1,46 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+// Layouts the result file can be written in. TSV is the original tab separated table with a header
+// line, BED gives one interval per region for genome browsers and interval tools, and BINARY is a
+// compact big-endian record stream for downstream programs.
+public enum ResultFormat {
+	TSV,
+	BED,
+	BINARY;
+
+	public static ResultFormat Parse(String name) {
+		try {
+			return valueOf(name.toUpperCase(Locale.ROOT));
+		}
+		catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown output format " + name + ", expected tsv, bed or binary");
+		}
+	}
+
+	public RegionWriter Open(Path output, int bufferSize) throws IOException {
+		var stream = Files.newOutputStream(output);
+		try {
+			return Open(stream, bufferSize);
+		}
+		catch (IOException | RuntimeException e) {
+			stream.close();
+			throw e;
+		}
+	}
+
+	// Closing the writer closes the stream
+	public RegionWriter Open(OutputStream output, int bufferSize) throws IOException {
+		switch (this) {
+		case BED:
+			return new BedRegionWriter(output, bufferSize);
+		case BINARY:
+			return new BinaryRegionWriter(output, bufferSize);
+		default:
+			return new TsvRegionWriter(output, bufferSize);
+		}
+	}
+}
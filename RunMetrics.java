@@ -0,0 +1,241 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Counters and phase timers for one run, safe to update from the chromosome tasks concurrently.
+// A phase records its wall time and, where the JVM can report it, the bytes the timing thread
+// allocated meanwhile. WriteJson puts everything, with throughputs derived from it, in one
+// machine-readable summary.
+public class RunMetrics {
+
+	public static final String LOAD = "load";
+	public static final String PARTITION = "partition";
+	public static final String ANALYSE = "analyse";
+	public static final String TRAVERSE = "traverse";
+	public static final String REGION_BUILD = "regionBuild";
+	public static final String WRITE = "write";
+
+	public static final String MARKERS = "markers";
+	public static final String CHROMOSOMES = "chromosomes";
+	public static final String INDEX_CANDIDATES = "indexCandidates";
+	public static final String TRAVERSE_SEARCHES = "traverseSearches";
+	public static final String TRAVERSE_ITERATIONS = "traverseIterations";
+	public static final String REGIONS = "regions";
+
+	// Null where the JVM cannot count allocations per thread
+	static final com.sun.management.ThreadMXBean THREADS = AllocationCountingThreads();
+
+	final long _startNanos;
+	final Map<String, LongAdder> _counters;
+	final Map<String, Phase> _phases;
+	final Map<String, ChromosomeMetrics> _chromosomes;
+
+	public RunMetrics() {
+		_startNanos = System.nanoTime();
+		_counters = new ConcurrentHashMap<String, LongAdder>();
+		_phases = new ConcurrentHashMap<String, Phase>();
+		_chromosomes = new ConcurrentHashMap<String, ChromosomeMetrics>();
+	}
+
+	public void Count(String counter, long amount) {
+		Counter(counter).add(amount);
+	}
+
+	// The counter itself, for loops that would otherwise look it up on every step
+	public LongAdder Counter(String counter) {
+		return _counters.computeIfAbsent(counter, x -> new LongAdder());
+	}
+
+	public long GetCount(String counter) {
+		var count = _counters.get(counter);
+		return count == null ? 0 : count.sum();
+	}
+
+	// Usage: var timer = metrics.Start(RunMetrics.LOAD); try { ... } finally { timer.Stop(); }
+	public Timer Start(String phase) {
+		return new Timer(_phases.computeIfAbsent(phase, x -> new Phase()));
+	}
+
+	// Adds time measured by the caller, for phases too short and frequent for a Timer each
+	public void AddTime(String phase, long nanos) {
+		var timed = _phases.computeIfAbsent(phase, x -> new Phase());
+		timed._nanos.add(nanos);
+		timed._count.increment();
+	}
+
+	// Runs sharing the metrics, such as the files of a batch or the thresholds of a sweep, each add
+	// their chromosomes, so the entries are summed rather than replaced
+	public void AddChromosome(String chromosome, int markers, int regions, long nanos) {
+		_chromosomes.merge(chromosome, new ChromosomeMetrics(1, markers, regions, nanos), ChromosomeMetrics::Plus);
+	}
+
+	// Bytes the current thread has allocated so far, or -1 when that cannot be told
+	public static long AllocatedBytes() {
+		return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+	}
+
+	public void WriteJson(Path path) throws IOException {
+		try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+			writer.write(ToJson());
+		}
+	}
+
+	public String ToJson() {
+		long wallNanos = System.nanoTime() - _startNanos;
+		double wallSeconds = wallNanos / 1e9;
+
+		var json = new StringBuilder();
+		json.append("{\n");
+		json.append("  \"wallNanos\": ").append(wallNanos).append(",\n");
+
+		json.append("  \"counters\": {");
+		List<String> counters = new ArrayList<String>();
+		for (Map.Entry<String, LongAdder> counter : Sorted(_counters).entrySet()) {
+			counters.add(Quote(counter.getKey()) + ": " + counter.getValue().sum());
+		}
+		json.append(String.join(", ", counters)).append("},\n");
+
+		long allocatedBytes = 0;
+		json.append("  \"phases\": {");
+		List<String> phases = new ArrayList<String>();
+		for (Map.Entry<String, Phase> phase : Sorted(_phases).entrySet()) {
+			var value = phase.getValue();
+			var entry = new StringBuilder();
+			entry.append("\n    ").append(Quote(phase.getKey())).append(": {\"count\": ").append(value._count.sum())
+					.append(", \"nanos\": ").append(value._nanos.sum());
+			// Time added through AddTime comes without allocations
+			if (value._allocationsCounted) {
+				entry.append(", \"allocatedBytes\": ").append(value._allocatedBytes.sum());
+				allocatedBytes += value._allocatedBytes.sum();
+			}
+			phases.add(entry.append("}").toString());
+		}
+		json.append(String.join(",", phases)).append(phases.isEmpty() ? "" : "\n  ").append("},\n");
+
+		json.append("  \"throughput\": {");
+		json.append("\"markersPerSecond\": ").append(Rate(GetCount(MARKERS), wallSeconds));
+		json.append(", \"regionsPerSecond\": ").append(Rate(GetCount(REGIONS), wallSeconds));
+		if (THREADS != null) {
+			json.append(", \"allocatedBytesPerSecond\": ").append(Rate(allocatedBytes, wallSeconds));
+		}
+		json.append("},\n");
+
+		json.append("  \"chromosomes\": [");
+		List<String> chromosomes = new ArrayList<String>(_chromosomes.keySet());
+		chromosomes.sort(ChromosomeDictionary.NATURAL_ORDER);
+		for (int i = 0; i < chromosomes.size(); i++) {
+			var chromosome = _chromosomes.get(chromosomes.get(i));
+			json.append(i == 0 ? "\n" : ",\n");
+			json.append("    {\"chromosome\": ").append(Quote(chromosomes.get(i)))
+					.append(", \"runs\": ").append(chromosome._runs)
+					.append(", \"markers\": ").append(chromosome._markers)
+					.append(", \"regions\": ").append(chromosome._regions)
+					.append(", \"nanos\": ").append(chromosome._nanos).append("}");
+		}
+		json.append(chromosomes.isEmpty() ? "" : "\n  ").append("]\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	public class Timer {
+
+		final Phase _phase;
+		final long _startNanos;
+		final long _startAllocatedBytes;
+
+		Timer(Phase phase) {
+			_phase = phase;
+			_startAllocatedBytes = AllocatedBytes();
+			_startNanos = System.nanoTime();
+		}
+
+		public void Stop() {
+			_phase._nanos.add(System.nanoTime() - _startNanos);
+			_phase._count.increment();
+			if (_startAllocatedBytes >= 0) {
+				_phase._allocatedBytes.add(AllocatedBytes() - _startAllocatedBytes);
+				_phase._allocationsCounted = true;
+			}
+		}
+	}
+
+	static class Phase {
+		final LongAdder _count = new LongAdder();
+		final LongAdder _nanos = new LongAdder();
+		final LongAdder _allocatedBytes = new LongAdder();
+		volatile boolean _allocationsCounted;
+	}
+
+	static class ChromosomeMetrics {
+		final int _runs;
+		final long _markers;
+		final long _regions;
+		final long _nanos;
+
+		ChromosomeMetrics(int runs, long markers, long regions, long nanos) {
+			_runs = runs;
+			_markers = markers;
+			_regions = regions;
+			_nanos = nanos;
+		}
+
+		ChromosomeMetrics Plus(ChromosomeMetrics other) {
+			return new ChromosomeMetrics(_runs + other._runs, _markers + other._markers, _regions + other._regions, _nanos + other._nanos);
+		}
+	}
+
+	private static <T> Map<String, T> Sorted(Map<String, T> entries) {
+		List<String> keys = new ArrayList<String>(entries.keySet());
+		keys.sort(null);
+		Map<String, T> sorted = new LinkedHashMap<String, T>();
+		for (String key : keys) {
+			sorted.put(key, entries.get(key));
+		}
+		return sorted;
+	}
+
+	private static String Rate(long amount, double seconds) {
+		return seconds <= 0 ? "0" : String.format(Locale.ROOT, "%.1f", amount / seconds);
+	}
+
+	private static String Quote(String text) {
+		var quoted = new StringBuilder("\"");
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				quoted.append('\\').append(c);
+			} else if (c < 0x20) {
+				quoted.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+			} else {
+				quoted.append(c);
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private static com.sun.management.ThreadMXBean AllocationCountingThreads() {
+		try {
+			var threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof com.sun.management.ThreadMXBean) {
+				var allocationCounting = (com.sun.management.ThreadMXBean) threads;
+				if (allocationCounting.isThreadAllocatedMemorySupported() && allocationCounting.isThreadAllocatedMemoryEnabled()) {
+					return allocationCounting;
+				}
+			}
+		}
+		catch (LinkageError | UnsupportedOperationException e) {
+			// Not a HotSpot style JVM
+		}
+		return null;
+	}
+}
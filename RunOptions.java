@@ -0,0 +1,119 @@
+// Optional flags that follow the five positional arguments of UniqueRegions.
+public class RunOptions {
+
+	public String Engine = "recursive";
+	public int Threads = Runtime.getRuntime().availableProcessors();
+	public boolean Cache = false;
+	public boolean OffHeap = false;
+	public ResultFormat Format = ResultFormat.TSV;
+	public int WriteBufferSize = RegionWriter.DEFAULT_BUFFER_SIZE;
+	public boolean Streaming = false;
+	public boolean Pipeline = false;
+	// Shard numbers count from 1, a single shard means an ordinary run
+	public int Shard = 1;
+	public int ShardCount = 1;
+	public boolean Quiet = false;
+	public String MetricsFile = null;
+	// Writes a RegionQueryIndex next to the output
+	public boolean Index = false;
+	// The number of most significant regions to stop at, 0 for all of them
+	public int Top = 0;
+	// Only used by the serve command
+	public int Port = AnalysisServer.DEFAULT_PORT;
+	public long CacheMemory = Runtime.getRuntime().maxMemory() / 2;
+	// Only used by the query command
+	public boolean Nearest = false;
+
+	public static RunOptions Parse(String[] args, int firstOption) {
+		var options = new RunOptions();
+		boolean engineGiven = false;
+		for (int i = firstOption; i < args.length; i++) {
+			switch (args[i]) {
+			case "--engine":
+				options.Engine = RequireValue(args, ++i);
+				engineGiven = true;
+				if (!options.Engine.equals("recursive") && !options.Engine.equals("sweep")) {
+					throw new IllegalArgumentException("Unknown engine " + options.Engine + ", expected recursive or sweep");
+				}
+				break;
+			case "--threads":
+				options.Threads = Integer.parseInt(RequireValue(args, ++i));
+				if (options.Threads < 1) {
+					throw new IllegalArgumentException("--threads must be at least 1");
+				}
+				break;
+			case "--cache":
+				options.Cache = true;
+				break;
+			case "--offheap":
+				options.OffHeap = true;
+				break;
+			case "--pipeline":
+				options.Pipeline = true;
+				break;
+			case "--streaming":
+				options.Streaming = true;
+				break;
+			case "--shard":
+				var shard = RequireValue(args, ++i).split("/");
+				if (shard.length != 2) {
+					throw new IllegalArgumentException("--shard expects i/N, for example 2/4");
+				}
+				options.Shard = Integer.parseInt(shard[0]);
+				options.ShardCount = Integer.parseInt(shard[1]);
+				if (options.ShardCount < 1 || options.Shard < 1 || options.Shard > options.ShardCount) {
+					throw new IllegalArgumentException("--shard " + args[i] + " does not name one of the shards 1 to N");
+				}
+				break;
+			case "--quiet":
+				options.Quiet = true;
+				break;
+			case "--metrics":
+				options.MetricsFile = RequireValue(args, ++i);
+				break;
+			case "--top":
+				options.Top = Integer.parseInt(RequireValue(args, ++i));
+				if (options.Top < 1) {
+					throw new IllegalArgumentException("--top must be at least 1");
+				}
+				break;
+			case "--index":
+				options.Index = true;
+				break;
+			case "--nearest":
+				options.Nearest = true;
+				break;
+			case "--port":
+				options.Port = Integer.parseInt(RequireValue(args, ++i));
+				break;
+			case "--cache-memory":
+				options.CacheMemory = Long.parseLong(RequireValue(args, ++i)) << 20;
+				break;
+			case "--format":
+				options.Format = ResultFormat.Parse(RequireValue(args, ++i));
+				break;
+			case "--write-buffer":
+				options.WriteBufferSize = Integer.parseInt(RequireValue(args, ++i));
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown option " + args[i]);
+			}
+		}
+		// Streaming clumps with the sweep rules as the markers go by and never holds a store, so there is
+		// nothing for the recursive engine to search, nothing to cache and nothing to keep off the heap
+		if (options.Streaming && engineGiven && options.Engine.equals("recursive")) {
+			throw new IllegalArgumentException("--streaming clumps with the sweep rules and cannot be combined with --engine recursive");
+		}
+		if (options.Streaming && (options.Cache || options.OffHeap)) {
+			throw new IllegalArgumentException("--streaming keeps no marker store and cannot be combined with --cache or --offheap");
+		}
+		return options;
+	}
+
+	private static String RequireValue(String[] args, int index) {
+		if (index >= args.length) {
+			throw new IllegalArgumentException("Missing value for " + args[index - 1]);
+		}
+		return args[index];
+	}
+}
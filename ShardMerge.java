@@ -0,0 +1,65 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Combines the partial results of a sharded run into one result file. Regions are put in natural
+// chromosome order, keeping the order each shard wrote them in within a chromosome, and numbered
+// again from 1, which gives the same file a single unsharded run would have written.
+public class ShardMerge {
+
+	// java UniqueRegions merge output.txt part-1.txt part-2.txt ... [--format tsv|bed|binary] [--write-buffer bytes] [--index]
+	public static void main(String[] args) {
+		int firstOption = 0;
+		while (firstOption < args.length && !args[firstOption].startsWith("--")) {
+			firstOption++;
+		}
+		if (firstOption < 2) {
+			throw new IllegalArgumentException("Expected an output file followed by at least one partial result file");
+		}
+		var outputFileLocation = args[0];
+		var options = RunOptions.Parse(args, firstOption);
+		Diagnostics.setEnabled(!options.Quiet);
+
+		List<Region> regions = new ArrayList<Region>();
+		// Every chromosome belongs to one shard, so seeing it in two files means a shard was passed twice
+		Map<String, Integer> partialOfChromosome = new HashMap<String, Integer>();
+		try {
+			for (int i = 1; i < firstOption; i++) {
+				var partial = args[i];
+				var partialRegions = RegionReader.Read(Paths.get(partial));
+				for (Region region : partialRegions) {
+					var previous = partialOfChromosome.putIfAbsent(region.getChromosome(), i);
+					if (previous != null && previous != i) {
+						throw new IllegalArgumentException("Chromosome " + region.getChromosome() + " has regions in both " + args[previous] + " and " + partial);
+					}
+				}
+				Diagnostics.Print("Read " + partialRegions.size() + " regions from " + partial);
+				regions.addAll(partialRegions);
+			}
+
+			// Stable, so regions of one chromosome stay in the order their shard wrote them
+			regions.sort(Comparator.comparing(Region::getChromosome, ChromosomeDictionary.NATURAL_ORDER)
+					.thenComparingInt(Region::getRegionIndex));
+
+			try (RegionWriter writer = options.Format.Open(Paths.get(outputFileLocation), options.WriteBufferSize)) {
+				for (int i = 0; i < regions.size(); i++) {
+					regions.get(i).setRegionIndex(i + 1);
+					writer.Write(regions.get(i));
+				}
+			}
+			if (options.Index) {
+				RegionQueryIndex.Write(Paths.get(outputFileLocation), regions);
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+
+		System.out.println("Completed. Please find output at " + outputFileLocation);
+	}
+}
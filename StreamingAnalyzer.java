@@ -0,0 +1,229 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// Clumps an input that is already sorted by chromosome and position while it is being read, and
+// writes each region as soon as the sweep has moved more than searchSpace past its last suggestive
+// marker. Nothing but the region being built is kept, so memory stays fixed however large the
+// input is. Regions follow the rules of SweepClumpingEngine and are written with the usual columns,
+// numbered in the order the chromosomes appear in the input. Chromosome names are made canonical
+// the way ChromosomeDictionary does, so "chr1" and "1" are one chromosome.
+//
+// Input that is not sorted cannot be clumped this way and stops the run with an ArithmeticException,
+// as GeneAnalyzer does.
+public class StreamingAnalyzer implements MarkerSink {
+
+	double _indexPvalueThreshold;
+	double _suggestivePvalueThreshold;
+	Path _inputFileLocation;
+	int _searchSpace;
+	String _outputFileLocation;
+	int _parallelism;
+	int _readBufferSize;
+	ResultFormat _resultFormat;
+	int _writeBufferSize;
+
+	RegionWriter _writer;
+	List<Region> _regions;
+	int _regionCount;
+	RunMetrics _metrics;
+	int _chromosomeRegions;
+	long _chromosomeStartNanos;
+
+	Set<String> _finishedChromosomes;
+	// The chromosome as the reader last passed it, and its canonical name
+	String _inputChromosome;
+	String _chromosome;
+	int _lastPosition;
+	int _ordinal;
+	// Markers seen at _lastPosition, which all count towards a region starting or stopping there
+	int _markersAtLastPosition;
+
+	// The region being built and the markers between its first suggestive marker and the current one
+	RegionStatistics _chain;
+	int _chainMarkers;
+	int _chainTotalMarkers;
+	byte[] _leadName;
+	int _leadNameLength;
+	int _leadPosition;
+	double _leadPvalue;
+
+	public StreamingAnalyzer(double indexPvalueThreshold, double suggestivePvalueThreshold, String inputFileLocation, int searchSpace, String outputFileLocation) {
+		_indexPvalueThreshold = indexPvalueThreshold;
+		_suggestivePvalueThreshold = suggestivePvalueThreshold;
+		_inputFileLocation = Paths.get(inputFileLocation);
+		_searchSpace = searchSpace;
+		_outputFileLocation = outputFileLocation;
+
+		_parallelism = 1;
+		_readBufferSize = MarkerFileReader.DEFAULT_BUFFER_SIZE;
+		_resultFormat = ResultFormat.TSV;
+		_writeBufferSize = RegionWriter.DEFAULT_BUFFER_SIZE;
+		_finishedChromosomes = new HashSet<String>();
+		_chain = new RegionStatistics(indexPvalueThreshold, suggestivePvalueThreshold);
+		_leadName = new byte[64];
+		_metrics = new RunMetrics();
+	}
+
+	// Only used to inflate BGZF input; the markers themselves are read in order by one thread.
+	public void setParallelism(int parallelism) {
+		_parallelism = parallelism;
+	}
+
+	public void setReadBufferSize(int readBufferSize) {
+		_readBufferSize = readBufferSize;
+	}
+
+	public void setResultFormat(ResultFormat resultFormat) {
+		_resultFormat = resultFormat;
+	}
+
+	public void setWriteBufferSize(int writeBufferSize) {
+		_writeBufferSize = writeBufferSize;
+	}
+
+	// Also persist a RegionQueryIndex of the regions next to the output file. Keeps every region in
+	// memory until the end, which is small next to the markers.
+	public void setWriteRegionIndex(boolean writeRegionIndex) {
+		_regions = writeRegionIndex ? new ArrayList<Region>() : null;
+	}
+
+	// Reading, clumping and writing happen together, so the whole run is timed as the load phase.
+	public void setMetrics(RunMetrics metrics) {
+		_metrics = metrics;
+	}
+
+	public void RunThroughDataset() {
+		var timer = _metrics.Start(RunMetrics.LOAD);
+		try (RegionWriter writer = _resultFormat.Open(Paths.get(_outputFileLocation), _writeBufferSize);
+				InputStream input = MarkerLoader.OpenDecompressed(_inputFileLocation, _parallelism)) {
+			_writer = writer;
+			Diagnostics.Print("Found file and streaming...");
+			new MarkerFileReader(this, _readBufferSize, true).Read(input);
+			FinishChromosome();
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		catch (UncheckedIOException e) {
+			e.getCause().printStackTrace();
+			return;
+		}
+		finally {
+			timer.Stop();
+			_writer = null;
+		}
+
+		if (_regions != null) {
+			try {
+				RegionQueryIndex.Write(Paths.get(_outputFileLocation), _regions);
+			}
+			catch (IOException e) {
+				System.out.println("Could not write the region index: " + e);
+			}
+		}
+	}
+
+	@Override
+	public void Add(String chromosome, byte[] source, int nameOffset, int nameLength, int position, double pvalue) {
+		if (chromosome != _inputChromosome) {
+			_inputChromosome = chromosome;
+			var name = ChromosomeDictionary.Canonical(chromosome);
+			if (!name.equals(_chromosome)) {
+				FinishChromosome();
+				if (!_finishedChromosomes.add(name)) {
+					throw new ArithmeticException("Not in genomic order");
+				}
+				_chromosome = name;
+				_chromosomeRegions = 0;
+				_chromosomeStartNanos = System.nanoTime();
+				_lastPosition = position;
+				_ordinal = 0;
+				_markersAtLastPosition = 0;
+			}
+		}
+
+		if (position < _lastPosition) {
+			throw new ArithmeticException("Not in genomic order");
+		}
+		if (position != _lastPosition) {
+			_markersAtLastPosition = 0;
+		}
+		_lastPosition = position;
+		_markersAtLastPosition++;
+		int ordinal = _ordinal++;
+
+		if (!_chain.IsEmpty()) {
+			_chainMarkers++;
+			if (position == _chain.GetRegionStop()) {
+				_chainTotalMarkers = _chainMarkers;
+			}
+		}
+		if (!(pvalue <= _suggestivePvalueThreshold)) {
+			return;
+		}
+
+		if (!_chain.IsEmpty() && position - _chain.GetRegionStop() > _searchSpace) {
+			EmitChain();
+		}
+		if (_chain.IsEmpty()) {
+			// Markers at the same position ahead of this one lie inside the region as well
+			_chainMarkers = _markersAtLastPosition;
+		}
+		_chain.Add(ordinal, position, pvalue);
+		_chainTotalMarkers = _chainMarkers;
+
+		if (_chain.GetLeadOrdinal() == ordinal) {
+			if (nameLength > _leadName.length) {
+				_leadName = new byte[Math.max(nameLength, _leadName.length * 2)];
+			}
+			System.arraycopy(source, nameOffset, _leadName, 0, nameLength);
+			_leadNameLength = nameLength;
+			_leadPosition = position;
+			_leadPvalue = pvalue;
+		}
+	}
+
+	private void FinishChromosome() {
+		if (_chromosome != null) {
+			EmitChain();
+			_metrics.Count(RunMetrics.MARKERS, _ordinal);
+			_metrics.Count(RunMetrics.CHROMOSOMES, 1);
+			_metrics.Count(RunMetrics.REGIONS, _chromosomeRegions);
+			_metrics.AddChromosome(_chromosome, _ordinal, _chromosomeRegions, System.nanoTime() - _chromosomeStartNanos);
+		}
+	}
+
+	// Writes the chain as a region if it holds an index marker and starts an empty one
+	private void EmitChain() {
+		if (_chain.GetNumSigMarkers() > 0) {
+			var leadMarker = new Marker();
+			leadMarker.setName(new String(_leadName, 0, _leadNameLength, StandardCharsets.UTF_8));
+			leadMarker.setChromosome(_chromosome);
+			leadMarker.setPosition(_leadPosition);
+			leadMarker.setPvalue(_leadPvalue);
+			var newRegion = _chain.ToRegion(leadMarker);
+			newRegion.setRegionIndex(++_regionCount);
+			_chromosomeRegions++;
+			newRegion.setNumTotalMarkers(_chainTotalMarkers);
+			try {
+				_writer.Write(newRegion);
+				if (_regions != null) {
+					_regions.add(newRegion);
+				}
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		_chain.Reset();
+	}
+}
@@ -0,0 +1,92 @@
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// The markers at or below a suggestive p-value threshold, per chromosome and in position order, as
+// their ordinals and, side by side, their positions. Index markers are a subset of them, and usually
+// they are a tiny fraction of the chromosome, so engines walk these instead of the full columns, and
+// window lookups binary search the suggestive positions alone. The markers of a chromosome are
+// filtered the first time they are asked for; engines sharing a threshold can share one index.
+// Chromosomes have to be sealed before they are looked up.
+public class SuggestiveMarkerIndex {
+
+	final double _suggestivePvalueThreshold;
+	final Map<ChromosomeColumns, SuggestiveMarkers> _suggestiveMarkers;
+
+	public SuggestiveMarkerIndex(double suggestivePvalueThreshold) {
+		_suggestivePvalueThreshold = suggestivePvalueThreshold;
+		_suggestiveMarkers = new ConcurrentHashMap<ChromosomeColumns, SuggestiveMarkers>();
+	}
+
+	public double GetSuggestivePvalueThreshold() {
+		return _suggestivePvalueThreshold;
+	}
+
+	// Ordinals of the suggestive markers in the chromosome columns
+	public int[] Get(ChromosomeColumns chromosome) {
+		return Markers(chromosome)._ordinals;
+	}
+
+	// Positions of the suggestive markers, the i-th belonging to the i-th ordinal of Get
+	public int[] GetPositions(ChromosomeColumns chromosome) {
+		return Markers(chromosome)._positions;
+	}
+
+	// Suggestive markers with a position in [startPosition, stopPosition], as a range of indices into
+	// Get and GetPositions rather than of ordinals. Costs O(log s) for s suggestive markers.
+	public MarkerWindow Between(ChromosomeColumns chromosome, int startPosition, int stopPosition) {
+		return Markers(chromosome)._positionIndex.Between(startPosition, stopPosition);
+	}
+
+	// Filters every chromosome of the store now instead of on first use, for callers that account
+	// for the memory of the index when they build it
+	public void Build(MarkerStore store) {
+		for (ChromosomeColumns chromosome : store.GetChromosomes()) {
+			Markers(chromosome);
+		}
+	}
+
+	// Roughly the memory the filtered chromosomes take up, an ordinal and a position per marker
+	public long EstimatedBytes() {
+		long bytes = 0;
+		for (SuggestiveMarkers markers : _suggestiveMarkers.values()) {
+			bytes += markers._ordinals.length * 8L;
+		}
+		return bytes;
+	}
+
+	private SuggestiveMarkers Markers(ChromosomeColumns chromosome) {
+		return _suggestiveMarkers.computeIfAbsent(chromosome, this::Filter);
+	}
+
+	private SuggestiveMarkers Filter(ChromosomeColumns chromosome) {
+		int count = 0;
+		for (int ordinal = 0; ordinal < chromosome.Size(); ordinal++) {
+			if (chromosome.GetPvalue(ordinal) <= _suggestivePvalueThreshold) {
+				count++;
+			}
+		}
+		int[] ordinals = new int[count];
+		int[] positions = new int[count];
+		count = 0;
+		for (int ordinal = 0; ordinal < chromosome.Size(); ordinal++) {
+			if (chromosome.GetPvalue(ordinal) <= _suggestivePvalueThreshold) {
+				ordinals[count] = ordinal;
+				positions[count] = chromosome.GetPosition(ordinal);
+				count++;
+			}
+		}
+		return new SuggestiveMarkers(ordinals, positions);
+	}
+
+	static class SuggestiveMarkers {
+		final int[] _ordinals;
+		final int[] _positions;
+		final PositionIndex _positionIndex;
+
+		SuggestiveMarkers(int[] ordinals, int[] positions) {
+			_ordinals = ordinals;
+			_positions = positions;
+			_positionIndex = new PositionIndex(positions, positions.length);
+		}
+	}
+}
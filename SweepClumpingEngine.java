@@ -0,0 +1,66 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Builds every region of a chromosome in one left-to-right pass. Suggestive markers are chained
+// together as long as the gap to the previous suggestive marker is at most searchSpace, and a chain
+// becomes a region when it holds at least one index marker. Unlike the recursive traverse search,
+// each suggestive marker is looked at once, so a chromosome costs O(n) no matter how many index markers
+// it has.
+public class SweepClumpingEngine implements ClumpingEngine {
+
+	double _indexPvalueThreshold;
+	double _suggestivePvalueThreshold;
+	int _searchSpace;
+	SuggestiveMarkerIndex _suggestiveIndex;
+
+	public SweepClumpingEngine(double indexPvalueThreshold, double suggestivePvalueThreshold, int searchSpace) {
+		_indexPvalueThreshold = indexPvalueThreshold;
+		_suggestivePvalueThreshold = suggestivePvalueThreshold;
+		_searchSpace = searchSpace;
+		_suggestiveIndex = new SuggestiveMarkerIndex(suggestivePvalueThreshold);
+	}
+
+	// Shares the suggestive markers with other engines that use the same suggestive threshold.
+	public void setSuggestiveIndex(SuggestiveMarkerIndex suggestiveIndex) {
+		if (suggestiveIndex.GetSuggestivePvalueThreshold() != _suggestivePvalueThreshold) {
+			throw new IllegalArgumentException("Suggestive index was built for a threshold of " + suggestiveIndex.GetSuggestivePvalueThreshold());
+		}
+		_suggestiveIndex = suggestiveIndex;
+	}
+
+	public List<Region> AnalyzeChromosome(ChromosomeColumns chromosome) {
+		List<Region> resultSet = new ArrayList<Region>();
+
+		// The chain currently being built. Only suggestive markers are added to its statistics, the
+		// markers in between are counted once the chain is complete.
+		var chain = new RegionStatistics(_indexPvalueThreshold, _suggestivePvalueThreshold);
+		int chainStop = -1;
+
+		// Only suggestive markers can extend a chain, so the rest of the chromosome is never touched
+		for (int ordinal : _suggestiveIndex.Get(chromosome)) {
+			double pvalue = chromosome.GetPvalue(ordinal);
+			int position = chromosome.GetPosition(ordinal);
+			if (!chain.IsEmpty() && position - chromosome.GetPosition(chainStop) > _searchSpace) {
+				AppendIfIndexed(chromosome, chain, resultSet);
+				chain.Reset();
+			}
+
+			chain.Add(ordinal, position, pvalue);
+			chainStop = ordinal;
+		}
+
+		AppendIfIndexed(chromosome, chain, resultSet);
+
+		return resultSet;
+	}
+
+	private void AppendIfIndexed(ChromosomeColumns chromosome, RegionStatistics chain, List<Region> resultSet) {
+		if (chain.GetNumSigMarkers() == 0) {
+			return;
+		}
+		var newRegion = chain.ToRegion(chromosome);
+		// Every marker between the first and last suggestive marker counts, as in the recursive engine
+		newRegion.setNumTotalMarkers(chromosome.GetPositionIndex().Between(chain.GetRegionStart(), chain.GetRegionStop()).Size());
+		resultSet.add(newRegion);
+	}
+}
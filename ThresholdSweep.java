@@ -0,0 +1,81 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// Runs every combination of index threshold, suggestive threshold and search space against one
+// loaded dataset. The combinations, and the chromosomes within them, share one pool, and
+// combinations with the same suggestive threshold share its SuggestiveMarkerIndex. Each
+// combination writes its own output file, named after the output location with the parameters
+// added before the extension.
+public class ThresholdSweep {
+
+	// java UniqueRegions sweep input.txt output.txt 0.00001,0.000001 0.0001,0.001 250000,500000 [options]
+	public static void main(String[] args) {
+		var inputFileLocation = args[0];
+		var outputFileLocation = args[1];
+		var indexPvalueThresholds = args[2].split(",");
+		var suggestivePvalueThresholds = args[3].split(",");
+		var searchSpaces = args[4].split(",");
+		var options = RunOptions.Parse(args, 5);
+		Diagnostics.setEnabled(!options.Quiet);
+		// One set of metrics for the whole sweep, the combinations add up in it
+		var metrics = new RunMetrics();
+
+		// Load once, through an analyzer so the usual loader and marker cache are used
+		var loader = new RecursiveGeneAnalyzer(0, 0, inputFileLocation, 0, outputFileLocation);
+		loader.setParallelism(options.Threads);
+		loader.setUseCache(options.Cache);
+		loader.setOffHeap(options.OffHeap);
+		loader.setMetrics(metrics);
+		loader.UploadDataset();
+		MarkerStore dataSet = loader.getDataSet();
+
+		Map<String, SuggestiveMarkerIndex> suggestiveIndices = new HashMap<String, SuggestiveMarkerIndex>();
+		ForkJoinPool pool = new ForkJoinPool(options.Threads);
+		try {
+			List<ForkJoinTask<?>> combinations = new ArrayList<ForkJoinTask<?>>();
+			for (String indexPvalueThreshold : indexPvalueThresholds) {
+				for (String suggestivePvalueThreshold : suggestivePvalueThresholds) {
+					var suggestiveIndex = suggestiveIndices.computeIfAbsent(suggestivePvalueThreshold,
+							x -> new SuggestiveMarkerIndex(Double.parseDouble(x)));
+
+					for (String searchSpace : searchSpaces) {
+						var combinationOutput = OutputFor(outputFileLocation, indexPvalueThreshold, suggestivePvalueThreshold, searchSpace);
+						var geneAnalyzer = UniqueRegions.CreateAnalyzer(inputFileLocation, combinationOutput,
+								indexPvalueThreshold, suggestivePvalueThreshold, searchSpace, options, suggestiveIndex);
+						geneAnalyzer.setDataSet(dataSet);
+						geneAnalyzer.setPool(pool);
+						geneAnalyzer.setMetrics(metrics);
+
+						combinations.add(pool.submit(() -> {
+							geneAnalyzer.RunThroughDataset();
+							System.out.println("Completed. Please find output at " + combinationOutput);
+						}));
+					}
+				}
+			}
+
+			for (ForkJoinTask<?> combination : combinations) {
+				combination.join();
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+		UniqueRegions.WriteMetrics(options, metrics);
+	}
+
+	// output.txt becomes output.index-0.00001.suggestive-0.0001.window-500000.txt
+	static String OutputFor(String outputFileLocation, String indexPvalueThreshold, String suggestivePvalueThreshold, String searchSpace) {
+		var parameters = ".index-" + indexPvalueThreshold + ".suggestive-" + suggestivePvalueThreshold + ".window-" + searchSpace;
+		int extension = outputFileLocation.lastIndexOf('.');
+		int directory = Math.max(outputFileLocation.lastIndexOf('/'), outputFileLocation.lastIndexOf('\\'));
+		if (extension <= directory + 1) {
+			return outputFileLocation + parameters;
+		}
+		return outputFileLocation.substring(0, extension) + parameters + outputFileLocation.substring(extension);
+	}
+}
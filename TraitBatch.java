@@ -0,0 +1,175 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Clumps many summary files, one per trait, with the same thresholds in one JVM. Every file is a
+// task on one work-stealing pool, which also runs the chromosome tasks of each file, so a thread
+// that is done with a small file helps with the chromosomes of a large one. Files are started
+// largest first, which keeps one large file from being the only work left at the end. The column
+// storage, name arenas and read buffers of a finished file go to a MarkerBufferPool and are reused
+// for the next one, instead of being allocated and grown again for every file.
+//
+// The files come from a manifest, one input per line with an optional tab separated output, or
+// from a directory, in which case every file in it is an input. An output without a directory,
+// or not given at all, goes into the output directory under the input's file name.
+public class TraitBatch {
+
+	// java UniqueRegions batch manifest.txt|inputDirectory outputDirectory 0.00001 0.0001 500000 [options]
+	public static void main(String[] args) {
+		if (args.length < 5) {
+			throw new IllegalArgumentException("Expected a manifest or input directory, an output directory, the index and suggestive p-value thresholds and the search space");
+		}
+		var source = Paths.get(args[0]);
+		var outputDirectory = Paths.get(args[1]);
+		var indexPvalueThreshold = args[2];
+		var suggestivePvalueThreshold = args[3];
+		var searchSpace = args[4];
+		var options = RunOptions.Parse(args, 5);
+		Diagnostics.setEnabled(!options.Quiet);
+
+		if (options.Streaming || options.Pipeline || options.ShardCount > 1 || options.Top > 0) {
+			throw new IllegalArgumentException("batch runs every file in full on one pool and cannot be combined with --streaming, --pipeline, --shard or --top");
+		}
+
+		List<Job> jobs;
+		try {
+			Files.createDirectories(outputDirectory);
+			jobs = Files.isDirectory(source) ? FromDirectory(source, outputDirectory) : FromManifest(source, outputDirectory);
+			// Largest first, so the small files fill the gaps at the end
+			for (Job job : jobs) {
+				job._size = Files.size(job._input);
+				if (job._output.getParent() != null) {
+					Files.createDirectories(job._output.getParent());
+				}
+			}
+		}
+		catch (IOException e) {
+			e.printStackTrace();
+			return;
+		}
+		jobs.sort(Comparator.comparingLong((Job job) -> job._size).reversed());
+
+		var metrics = new RunMetrics();
+		var buffers = new MarkerBufferPool(options.OffHeap, Runtime.getRuntime().maxMemory() / 4);
+		var pool = new ForkJoinPool(options.Threads);
+		int failed = 0;
+		try {
+			List<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for (Job job : jobs) {
+				tasks.add(pool.submit(() -> Run(job, indexPvalueThreshold, suggestivePvalueThreshold, searchSpace, options, pool, buffers, metrics)));
+			}
+			for (int i = 0; i < tasks.size(); i++) {
+				try {
+					tasks.get(i).join();
+				}
+				catch (RuntimeException | Error e) {
+					System.out.println("Could not analyse " + jobs.get(i)._input + ": " + e);
+					failed++;
+				}
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+
+		UniqueRegions.WriteMetrics(options, metrics);
+		System.out.println("Completed " + (jobs.size() - failed) + " of " + jobs.size() + " files. Please find output in " + outputDirectory);
+	}
+
+	private static void Run(Job job, String indexPvalueThreshold, String suggestivePvalueThreshold, String searchSpace,
+			RunOptions options, ForkJoinPool pool, MarkerBufferPool buffers, RunMetrics metrics) {
+		var geneAnalyzer = UniqueRegions.CreateAnalyzer(job._input.toString(), job._output.toString(),
+				indexPvalueThreshold, suggestivePvalueThreshold, searchSpace, options,
+				new SuggestiveMarkerIndex(Double.parseDouble(suggestivePvalueThreshold)));
+		// The pool runs the files side by side already, so each file is read by a single thread
+		geneAnalyzer.setPool(pool);
+		geneAnalyzer.setParallelism(1);
+		geneAnalyzer.setBufferPool(buffers);
+		geneAnalyzer.setMetrics(metrics);
+		try {
+			geneAnalyzer.RunThroughDataset();
+		}
+		finally {
+			// RunThroughDataset returns, or throws, only once none of the file's chromosome tasks is running
+			buffers.Release(geneAnalyzer.getDataSet());
+		}
+		Diagnostics.Print("Completed. Please find output at " + job._output);
+	}
+
+	// Every regular file in the directory, by name, leaving out hidden files and the sidecars and
+	// temporary files earlier runs leave next to their inputs and outputs
+	static List<Job> FromDirectory(Path directory, Path outputDirectory) throws IOException {
+		if (Files.isSameFile(directory, outputDirectory)) {
+			throw new IllegalArgumentException("The output directory has to differ from the input directory " + directory);
+		}
+		List<Path> inputs;
+		try (Stream<Path> files = Files.list(directory)) {
+			inputs = files.filter(Files::isRegularFile)
+					.filter(file -> !IsSkipped(file.getFileName().toString()))
+					.sorted()
+					.collect(Collectors.toList());
+		}
+		List<Job> jobs = new ArrayList<Job>();
+		for (Path input : inputs) {
+			jobs.add(new Job(input, outputDirectory.resolve(input.getFileName())));
+		}
+		return jobs;
+	}
+
+	// One input per line, optionally followed by a tab and its output. Blank lines and lines
+	// starting with # are skipped.
+	static List<Job> FromManifest(Path manifest, Path outputDirectory) throws IOException {
+		List<Job> jobs = new ArrayList<Job>();
+		Set<Path> outputs = new HashSet<Path>();
+		int lineNumber = 0;
+		for (String line : Files.readAllLines(manifest)) {
+			lineNumber++;
+			if (line.isBlank() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\t");
+			var input = Paths.get(fields[0].trim());
+			var output = fields.length > 1 && !fields[1].isBlank() ? Paths.get(fields[1].trim()) : input.getFileName();
+			if (output.getParent() == null) {
+				output = outputDirectory.resolve(output);
+			}
+			if (!outputs.add(output.toAbsolutePath().normalize())) {
+				throw new IllegalArgumentException("Line " + lineNumber + " of " + manifest + " writes " + output + " a second time");
+			}
+			// Found here rather than after the files before it have run
+			if (!Files.isRegularFile(input)) {
+				throw new IllegalArgumentException("Line " + lineNumber + " of " + manifest + " names no such input file " + input);
+			}
+			jobs.add(new Job(input, output));
+		}
+		return jobs;
+	}
+
+	private static boolean IsSkipped(String name) {
+		return name.startsWith(".") || name.endsWith(MarkerStoreCache.EXTENSION)
+				|| name.endsWith(RegionQueryIndex.EXTENSION) || name.endsWith(".tmp");
+	}
+
+	// One input file and where its regions go
+	static class Job {
+
+		final Path _input;
+		final Path _output;
+		long _size;
+
+		Job(Path input, Path output) {
+			_input = input;
+			_output = output;
+		}
+	}
+}
@@ -0,0 +1,41 @@
+import java.io.IOException;
+import java.io.OutputStream;
+
+// The tab separated result table, byte for byte what the analyzers have always written.
+public class TsvRegionWriter extends RegionWriter {
+
+	static final String HEADER = "Region\tMarkerName\tChr\tPosition\tP-value\tRegionStart\tRegionStop\t"
+			+ "NumSigMarkers\tNumSuggestiveMarkers\tNumTotalMarkers\tSizeOfRegion";
+
+	public TsvRegionWriter(OutputStream output, int bufferSize) throws IOException {
+		super(output, bufferSize);
+		PutText(HEADER);
+		PutByte('\n');
+	}
+
+	@Override
+	public void Write(Region region) throws IOException {
+		PutDecimal(region.getRegionIndex());
+		PutByte('\t');
+		PutText(region.getMarkerName());
+		PutByte('\t');
+		PutText(region.getChromosome());
+		PutByte('\t');
+		PutDecimal(region.getPosition());
+		PutByte('\t');
+		PutDecimal(region.getPvalue());
+		PutByte('\t');
+		PutDecimal(region.getRegionStart());
+		PutByte('\t');
+		PutDecimal(region.getRegionStop());
+		PutByte('\t');
+		PutDecimal(region.getNumSigMarkers());
+		PutByte('\t');
+		PutDecimal(region.getNumSuggestiveMarkers());
+		PutByte('\t');
+		PutDecimal(region.getNumTotalMarkers());
+		PutByte('\t');
+		PutDecimal(region.getSizeOfRegion());
+		PutByte('\n');
+	}
+}
@@ -1,24 +1,159 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 public class UniqueRegions {
 
-	// java UniqueRegions input.txt output.txt 0.00001 0.0001 500000
+	// java UniqueRegions input.txt output.txt 0.00001 0.0001 500000 [--engine recursive|sweep] [--threads n] [--cache]
+	//                    [--offheap] [--format tsv|bed|binary] [--write-buffer bytes] [--streaming] [--shard i/N]
+	//                    [--top k] [--metrics metrics.json] [--index] [--quiet]
+	// java UniqueRegions sweep input.txt output.txt 0.00001,0.000001 0.0001,0.001 250000,500000 [options]
+	// java UniqueRegions merge output.txt part-1.txt part-2.txt ... [--format tsv|bed|binary] [--index]
+	// java UniqueRegions query output.txt chr1:1000000-2000000 chr2:150000 ... [--nearest] [--format tsv|bed|binary]
+	// java UniqueRegions serve [--port 8470] [--cache-memory megabytes] [--threads n] [--cache] [--offheap]
+	// java UniqueRegions batch manifest.txt|inputDirectory outputDirectory 0.00001 0.0001 500000 [options]
+	//
+	// A sharded run is one process per shard, for example --shard 1/3, --shard 2/3 and --shard 3/3,
+	// each with its own output file, followed by merge over those files.
+	// A batch manifest has one input per line, optionally followed by a tab and its output file.
+	// --pipeline reads, analyses and writes chromosomes at the same time; the input must be grouped by chromosome, in natural chromosome order.
+	// --top k stops at the k regions with the most significant leads and writes them in that order.
+	// --index also writes output.txt.regions, which query looks regions up in without reading the whole output.
+	// --offheap keeps the markers outside the heap, so run it with -XX:MaxDirectMemorySize set high enough for them.
 	public static void main(String[] args) {
+		if(args[0].equals("query")) {
+			RegionLookup.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args[0].equals("serve")) {
+			AnalysisServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args[0].equals("batch")) {
+			TraitBatch.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args[0].equals("sweep")) {
+			ThresholdSweep.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		if(args[0].equals("merge")) {
+			ShardMerge.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
 		var inputFileLocation = args[0];
         var outputFileLocation = args[1];
         var indexPvalueThreshold = args[2];
         var suggestivePvalueThreshold = args[3];
         var searchSpace = args[4];
+        var options = RunOptions.Parse(args, 5);
+        Diagnostics.setEnabled(!options.Quiet);
+        var metrics = new RunMetrics();
         
-        var geneAnalyzer = new RecursiveGeneAnalyzer(Double.parseDouble(indexPvalueThreshold), 
-        		Double.parseDouble(suggestivePvalueThreshold), 
-        		inputFileLocation, 
-        		Integer.parseInt(searchSpace), 
-        		outputFileLocation);
+        if(options.Top > 0 && (options.Streaming || options.ShardCount > 1)) {
+        	throw new IllegalArgumentException("--top ranks index markers across the whole input and cannot be combined with --streaming or --shard");
+        }
+        if(options.Streaming) {
+        	if(options.ShardCount > 1) {
+        		throw new IllegalArgumentException("--shard needs the chromosome sizes up front and cannot be combined with --streaming");
+        	}
+        	// Sorted input only, clumped with the sweep rules while it is read
+        	var streamingAnalyzer = new StreamingAnalyzer(Double.parseDouble(indexPvalueThreshold), 
+        			Double.parseDouble(suggestivePvalueThreshold), 
+        			inputFileLocation, 
+        			Integer.parseInt(searchSpace), 
+        			outputFileLocation);
+        	streamingAnalyzer.setParallelism(options.Threads);
+        	streamingAnalyzer.setResultFormat(options.Format);
+        	streamingAnalyzer.setWriteBufferSize(options.WriteBufferSize);
+        	streamingAnalyzer.setMetrics(metrics);
+        	streamingAnalyzer.setWriteRegionIndex(options.Index);
+        	streamingAnalyzer.RunThroughDataset();
+        	
+        	WriteMetrics(options, metrics);
+        	System.out.println("Completed. Please find output at " + outputFileLocation);
+        	return;
+        }
+        
+        if(options.Pipeline) {
+        	if(options.Streaming || options.ShardCount > 1 || options.Top > 0 || options.Cache) {
+        		throw new IllegalArgumentException("--pipeline analyses each chromosome as soon as it is read and cannot be combined with --streaming, --shard, --top or --cache");
+        	}
+        	// A fresh suggestive index per chromosome, so a finished chromosome is not kept alive by it
+        	var pipelinedAnalyzer = new PipelinedAnalyzer(inputFileLocation, outputFileLocation, 
+        			() -> CreateAnalyzer(inputFileLocation, outputFileLocation, indexPvalueThreshold, 
+        					suggestivePvalueThreshold, searchSpace, options, 
+        					new SuggestiveMarkerIndex(Double.parseDouble(suggestivePvalueThreshold))));
+        	pipelinedAnalyzer.setParallelism(options.Threads);
+        	pipelinedAnalyzer.setResultFormat(options.Format);
+        	pipelinedAnalyzer.setWriteBufferSize(options.WriteBufferSize);
+        	pipelinedAnalyzer.setOffHeap(options.OffHeap);
+        	pipelinedAnalyzer.setWriteRegionIndex(options.Index);
+        	pipelinedAnalyzer.setMetrics(metrics);
+        	pipelinedAnalyzer.RunThroughDataset();
+        	
+        	WriteMetrics(options, metrics);
+        	System.out.println("Completed. Please find output at " + outputFileLocation);
+        	return;
+        }
+        
+        var geneAnalyzer = CreateAnalyzer(inputFileLocation, outputFileLocation, indexPvalueThreshold, 
+        		suggestivePvalueThreshold, searchSpace, options, 
+        		new SuggestiveMarkerIndex(Double.parseDouble(suggestivePvalueThreshold)));
+        
+        geneAnalyzer.setMetrics(metrics);
         
         //geneAnalyzer.GetMyRegions();
         geneAnalyzer.RunThroughDataset();
         
+        WriteMetrics(options, metrics);
         System.out.println("Completed. Please find output at " + outputFileLocation);
 	}
 
+	// Writes the JSON summary when --metrics asked for one
+	static void WriteMetrics(RunOptions options, RunMetrics metrics) {
+		if(options.MetricsFile == null) {
+			return;
+		}
+		try {
+			metrics.WriteJson(Paths.get(options.MetricsFile));
+		}
+		catch (IOException e) {
+			System.out.println("Could not write the metrics: " + e);
+		}
+	}
+
+	static RecursiveGeneAnalyzer CreateAnalyzer(String inputFileLocation, String outputFileLocation, String indexPvalueThreshold, 
+			String suggestivePvalueThreshold, String searchSpace, RunOptions options, SuggestiveMarkerIndex suggestiveIndex) {
+		var geneAnalyzer = new RecursiveGeneAnalyzer(Double.parseDouble(indexPvalueThreshold), 
+        		Double.parseDouble(suggestivePvalueThreshold), 
+        		inputFileLocation, 
+        		Integer.parseInt(searchSpace), 
+        		outputFileLocation);
+        
+        geneAnalyzer.setParallelism(options.Threads);
+        geneAnalyzer.setUseCache(options.Cache);
+        geneAnalyzer.setOffHeap(options.OffHeap);
+        geneAnalyzer.setSuggestiveIndex(suggestiveIndex);
+        geneAnalyzer.setResultFormat(options.Format);
+        geneAnalyzer.setWriteBufferSize(options.WriteBufferSize);
+        geneAnalyzer.setShard(options.Shard, options.ShardCount);
+        geneAnalyzer.setWriteRegionIndex(options.Index);
+        geneAnalyzer.setTopRegions(options.Top);
+        
+        if(options.Top > 0 && options.Engine.equals("sweep")) {
+        	throw new IllegalArgumentException("--top runs the recursive traverse search from each index marker and cannot be combined with --engine sweep");
+        }
+        if(options.Engine.equals("sweep")) {
+        	// Single pass clumping, to compare against the recursive traverse search on the same input
+        	var engine = new SweepClumpingEngine(Double.parseDouble(indexPvalueThreshold), 
+            		Double.parseDouble(suggestivePvalueThreshold), 
+            		Integer.parseInt(searchSpace));
+        	engine.setSuggestiveIndex(suggestiveIndex);
+        	geneAnalyzer.setEngine(engine);
+        }
+        
+        return geneAnalyzer;
+	}
 }
@@ -0,0 +1,145 @@
+package genejava.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The clumping hot paths on one synthetic chromosome: the window lookups, a full TraverseSearch
+ * and region construction, each started from the index markers in turn, and whole-chromosome runs
+ * of both engines. The lookups run against a warm suggestive marker index, as every search after
+ * the first one of a run does. The engines get a fresh index for every invocation, so their time
+ * includes the pass that filters the suggestive markers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ChromosomeBenchmark {
+
+	@Param({ "100000", "1000000", "10000000" })
+	int markers;
+
+	@Param({ "0.0005" })
+	double signalDensity;
+
+	@Param({ "0.00001" })
+	double indexPvalueThreshold;
+
+	@Param({ "0.0001" })
+	double suggestivePvalueThreshold;
+
+	@Param({ "500000" })
+	int searchSpace;
+
+	Object chromosome;
+	Object analyzer;
+	Object sweepEngine;
+	Object statistics;
+	int[] indexPositions;
+	Object[] regionWindows;
+	int next;
+
+	@Setup
+	public void Setup() throws Throwable {
+		// The analyzer prints every search and region otherwise, which would be most of what is timed
+		GeneJava.DIAGNOSTICS_SET_ENABLED.invokeExact(false);
+		Object store = new SyntheticChromosome(markers, signalDensity, 42).ToStore();
+		chromosome = (Object) GeneJava.STORE_GET_CHROMOSOME.invokeExact(store, (Object) SyntheticChromosome.CHROMOSOME);
+
+		analyzer = (Object) GeneJava.NEW_RECURSIVE_GENE_ANALYZER.invokeExact(indexPvalueThreshold, suggestivePvalueThreshold,
+				(Object) "unused", searchSpace, (Object) "unused");
+		GeneJava.ANALYZER_SET_DATA_SET.invokeExact(analyzer, store);
+		sweepEngine = (Object) GeneJava.NEW_SWEEP_CLUMPING_ENGINE.invokeExact(indexPvalueThreshold, suggestivePvalueThreshold, searchSpace);
+		// One instance for every region, as AnalyzeChromosome does
+		statistics = (Object) GeneJava.NEW_REGION_STATISTICS.invokeExact(indexPvalueThreshold, suggestivePvalueThreshold);
+
+		List<Integer> positions = new ArrayList<>();
+		int size = (int) GeneJava.COLUMNS_SIZE.invokeExact(chromosome);
+		for (int i = 0; i < size; i++) {
+			if ((double) GeneJava.COLUMNS_GET_PVALUE.invokeExact(chromosome, i) <= indexPvalueThreshold) {
+				positions.add((int) GeneJava.COLUMNS_GET_POSITION.invokeExact(chromosome, i));
+			}
+		}
+		if (positions.isEmpty()) {
+			throw new IllegalStateException("No index markers, raise the signal density");
+		}
+		indexPositions = positions.stream().mapToInt(Integer::intValue).toArray();
+
+		regionWindows = new Object[indexPositions.length];
+		for (int i = 0; i < indexPositions.length; i++) {
+			regionWindows[i] = (Object) GeneJava.TRAVERSE_SEARCH.invokeExact(analyzer, chromosome, indexPositions[i]);
+		}
+	}
+
+	private int NextIndexMarker() {
+		int current = next;
+		next = current + 1 == indexPositions.length ? 0 : current + 1;
+		return current;
+	}
+
+	@Benchmark
+	public Object expandPlusDirection() throws Throwable {
+		return (Object) GeneJava.EXPAND_PLUS_DIRECTION.invokeExact(analyzer, chromosome, indexPositions[NextIndexMarker()]);
+	}
+
+	@Benchmark
+	public Object expandMinusDirection() throws Throwable {
+		return (Object) GeneJava.EXPAND_MINUS_DIRECTION.invokeExact(analyzer, chromosome, indexPositions[NextIndexMarker()]);
+	}
+
+	@Benchmark
+	public Object traverseSearch() throws Throwable {
+		return (Object) GeneJava.TRAVERSE_SEARCH.invokeExact(analyzer, chromosome, indexPositions[NextIndexMarker()]);
+	}
+
+	@Benchmark
+	public Object constructRegionAndAppendToResultSet() throws Throwable {
+		List<Object> resultSet = new ArrayList<>(1);
+		GeneJava.CONSTRUCT_REGION.invokeExact(analyzer, chromosome, regionWindows[NextIndexMarker()], statistics, (Object) resultSet);
+		return resultSet;
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object recursiveEngine(FreshIndex index) throws Throwable {
+		return (Object) GeneJava.ANALYZE_CHROMOSOME.invokeExact(analyzer, chromosome);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Object sweepEngine(FreshIndex index) throws Throwable {
+		return (Object) GeneJava.ANALYZE_CHROMOSOME.invokeExact(sweepEngine, chromosome);
+	}
+
+	/**
+	 * Hands both engines a new, empty suggestive marker index before every invocation of the benchmarks
+	 * that take it. The lookup benchmarks leave it out and keep the index their Setup warmed.
+	 */
+	@State(Scope.Thread)
+	public static class FreshIndex {
+
+		@Setup(Level.Invocation)
+		public void Setup(ChromosomeBenchmark benchmark) throws Throwable {
+			GeneJava.ANALYZER_SET_SUGGESTIVE_INDEX.invokeExact(benchmark.analyzer,
+					(Object) GeneJava.NEW_SUGGESTIVE_MARKER_INDEX.invokeExact(benchmark.suggestivePvalueThreshold));
+			GeneJava.SWEEP_SET_SUGGESTIVE_INDEX.invokeExact(benchmark.sweepEngine,
+					(Object) GeneJava.NEW_SUGGESTIVE_MARKER_INDEX.invokeExact(benchmark.suggestivePvalueThreshold));
+		}
+	}
+}
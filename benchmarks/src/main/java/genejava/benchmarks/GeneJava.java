@@ -0,0 +1,119 @@
+package genejava.benchmarks;
+
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Handles onto the analyzer classes. They live in the default package, which JMH benchmarks
+ * cannot import from, so they are looked up reflectively once. Reference types are erased to
+ * Object and primitives are kept, so each call site can use invokeExact and costs the same as a
+ * direct call once the JIT has inlined the constant handle.
+ */
+final class GeneJava {
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+	static final Class<?> MARKER_STORE = Load("MarkerStore");
+	static final Class<?> CHROMOSOME_COLUMNS = Load("ChromosomeColumns");
+	static final Class<?> MARKER_WINDOW = Load("MarkerWindow");
+	static final Class<?> MARKER_SINK = Load("MarkerSink");
+	static final Class<?> MARKER_FILE_READER = Load("MarkerFileReader");
+	static final Class<?> RECURSIVE_GENE_ANALYZER = Load("RecursiveGeneAnalyzer");
+	static final Class<?> SWEEP_CLUMPING_ENGINE = Load("SweepClumpingEngine");
+	static final Class<?> CLUMPING_ENGINE = Load("ClumpingEngine");
+	static final Class<?> REGION = Load("Region");
+	static final Class<?> REGION_STATISTICS = Load("RegionStatistics");
+	static final Class<?> SUGGESTIVE_MARKER_INDEX = Load("SuggestiveMarkerIndex");
+	static final Class<?> DIAGNOSTICS = Load("Diagnostics");
+	static final Class<?> RESULT_FORMAT = Load("ResultFormat");
+	static final Class<?> REGION_WRITER = Load("RegionWriter");
+
+	static final MethodHandle NEW_MARKER_STORE = Constructor(MARKER_STORE);
+	static final MethodHandle STORE_ADD = Method(MARKER_STORE, "Add", void.class, String.class, String.class, int.class, double.class);
+	static final MethodHandle STORE_SEAL = Method(MARKER_STORE, "Seal", void.class);
+	static final MethodHandle STORE_GET_CHROMOSOME = Method(MARKER_STORE, "GetChromosome", CHROMOSOME_COLUMNS, String.class);
+
+	static final MethodHandle COLUMNS_SIZE = Method(CHROMOSOME_COLUMNS, "Size", int.class);
+	static final MethodHandle COLUMNS_GET_POSITION = Method(CHROMOSOME_COLUMNS, "GetPosition", int.class, int.class);
+	static final MethodHandle COLUMNS_GET_PVALUE = Method(CHROMOSOME_COLUMNS, "GetPvalue", double.class, int.class);
+
+	static final MethodHandle NEW_MARKER_FILE_READER = Constructor(MARKER_FILE_READER, MARKER_SINK, int.class, boolean.class);
+	static final MethodHandle READER_READ = Method(MARKER_FILE_READER, "Read", void.class, InputStream.class);
+
+	static final MethodHandle NEW_RECURSIVE_GENE_ANALYZER = Constructor(RECURSIVE_GENE_ANALYZER, double.class, double.class, String.class, int.class, String.class);
+	static final MethodHandle ANALYZER_SET_DATA_SET = Method(RECURSIVE_GENE_ANALYZER, "setDataSet", void.class, MARKER_STORE);
+	static final MethodHandle EXPAND_PLUS_DIRECTION = Method(RECURSIVE_GENE_ANALYZER, "ExpandPlusDirection", MARKER_WINDOW, CHROMOSOME_COLUMNS, int.class);
+	static final MethodHandle EXPAND_MINUS_DIRECTION = Method(RECURSIVE_GENE_ANALYZER, "ExpandMinusDirection", MARKER_WINDOW, CHROMOSOME_COLUMNS, int.class);
+	static final MethodHandle TRAVERSE_SEARCH = Method(RECURSIVE_GENE_ANALYZER, "TraverseSearch", MARKER_WINDOW, CHROMOSOME_COLUMNS, int.class);
+	static final MethodHandle CONSTRUCT_REGION = Method(RECURSIVE_GENE_ANALYZER, "ConstructRegionAndAppendToResultSet", void.class, CHROMOSOME_COLUMNS, MARKER_WINDOW, REGION_STATISTICS, List.class);
+
+	static final MethodHandle ANALYZER_SET_SUGGESTIVE_INDEX = Method(RECURSIVE_GENE_ANALYZER, "setSuggestiveIndex", void.class, SUGGESTIVE_MARKER_INDEX);
+
+	static final MethodHandle NEW_SWEEP_CLUMPING_ENGINE = Constructor(SWEEP_CLUMPING_ENGINE, double.class, double.class, int.class);
+	static final MethodHandle SWEEP_SET_SUGGESTIVE_INDEX = Method(SWEEP_CLUMPING_ENGINE, "setSuggestiveIndex", void.class, SUGGESTIVE_MARKER_INDEX);
+	static final MethodHandle ANALYZE_CHROMOSOME = Method(CLUMPING_ENGINE, "AnalyzeChromosome", List.class, CHROMOSOME_COLUMNS);
+
+	static final MethodHandle NEW_SUGGESTIVE_MARKER_INDEX = Constructor(SUGGESTIVE_MARKER_INDEX, double.class);
+	static final MethodHandle NEW_REGION_STATISTICS = Constructor(REGION_STATISTICS, double.class, double.class);
+
+	static final MethodHandle REGION_SET_REGION_INDEX = Method(REGION, "setRegionIndex", void.class, int.class);
+
+	static final MethodHandle DIAGNOSTICS_SET_ENABLED = Method(DIAGNOSTICS, "setEnabled", void.class, boolean.class);
+
+	static final MethodHandle RESULT_FORMAT_PARSE = Method(RESULT_FORMAT, "Parse", RESULT_FORMAT, String.class);
+	static final MethodHandle RESULT_FORMAT_OPEN = Method(RESULT_FORMAT, "Open", REGION_WRITER, Path.class, int.class);
+	static final MethodHandle WRITER_WRITE_ALL = Method(REGION_WRITER, "WriteAll", void.class, List.class);
+	static final MethodHandle WRITER_CLOSE = Method(REGION_WRITER, "close", void.class);
+
+	private GeneJava() {
+	}
+
+	private static Class<?> Load(String name) {
+		try {
+			return Class.forName(name);
+		}
+		catch (ClassNotFoundException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static MethodHandle Constructor(Class<?> owner, Class<?>... parameters) {
+		try {
+			return Erase(LOOKUP.findConstructor(owner, MethodType.methodType(void.class, parameters)));
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static MethodHandle Method(Class<?> owner, String name, Class<?> returnType, Class<?>... parameters) {
+		try {
+			var method = owner.getDeclaredMethod(name, parameters);
+			method.setAccessible(true);
+			if (!method.getReturnType().equals(returnType)) {
+				throw new NoSuchMethodException(owner.getName() + "." + name + " returns " + method.getReturnType());
+			}
+			return Erase(LOOKUP.unreflect(method));
+		}
+		catch (ReflectiveOperationException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private static MethodHandle Erase(MethodHandle handle) {
+		MethodType type = handle.type();
+		for (int i = 0; i < type.parameterCount(); i++) {
+			if (!type.parameterType(i).isPrimitive()) {
+				type = type.changeParameterType(i, Object.class);
+			}
+		}
+		if (!type.returnType().isPrimitive()) {
+			type = type.changeReturnType(Object.class);
+		}
+		return handle.asType(type);
+	}
+}
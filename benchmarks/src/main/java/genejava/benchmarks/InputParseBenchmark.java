@@ -0,0 +1,51 @@
+package genejava.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing an input file into a MarkerStore, the work done by the loaders in place of the former
+ * TransformInputFileToListOfObjects. The file is held in memory so only parsing is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class InputParseBenchmark {
+
+	@Param({ "100000", "1000000", "10000000" })
+	int markers;
+
+	@Param({ "0.0005" })
+	double signalDensity;
+
+	byte[] text;
+
+	@Setup
+	public void Setup() throws Throwable {
+		GeneJava.DIAGNOSTICS_SET_ENABLED.invokeExact(false);
+		text = new SyntheticChromosome(markers, signalDensity, 42).ToText();
+	}
+
+	@Benchmark
+	public Object parse() throws Throwable {
+		Object store = (Object) GeneJava.NEW_MARKER_STORE.invokeExact();
+		Object reader = (Object) GeneJava.NEW_MARKER_FILE_READER.invokeExact(store, 1 << 20, true);
+		GeneJava.READER_READ.invokeExact(reader, (Object) new ByteArrayInputStream(text));
+		return store;
+	}
+}
@@ -0,0 +1,80 @@
+package genejava.benchmarks;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing the result file for the regions of a synthetic chromosome, through the RegionWriter the
+ * analyzer writes with. The number of regions grows with the marker count and the signal density.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class ResultFileBenchmark {
+
+	static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+	@Param({ "100000", "1000000", "10000000" })
+	int markers;
+
+	@Param({ "0.0005" })
+	double signalDensity;
+
+	@Param({ "tsv", "bed", "binary" })
+	String format;
+
+	File output;
+	Object resultFormat;
+	List<Object> regions;
+
+	@Setup
+	@SuppressWarnings("unchecked")
+	public void Setup() throws Throwable {
+		GeneJava.DIAGNOSTICS_SET_ENABLED.invokeExact(false);
+		Object store = new SyntheticChromosome(markers, signalDensity, 42).ToStore();
+		Object chromosome = (Object) GeneJava.STORE_GET_CHROMOSOME.invokeExact(store, (Object) SyntheticChromosome.CHROMOSOME);
+
+		output = File.createTempFile("regions", ".txt");
+		resultFormat = (Object) GeneJava.RESULT_FORMAT_PARSE.invokeExact((Object) format);
+		Object engine = (Object) GeneJava.NEW_SWEEP_CLUMPING_ENGINE.invokeExact(0.00001, 0.0001, 500000);
+
+		regions = new ArrayList<Object>((List<Object>) (Object) GeneJava.ANALYZE_CHROMOSOME.invokeExact(engine, chromosome));
+		for (int i = 0; i < regions.size(); i++) {
+			GeneJava.REGION_SET_REGION_INDEX.invokeExact(regions.get(i), i + 1);
+		}
+	}
+
+	@TearDown
+	public void TearDown() {
+		output.delete();
+	}
+
+	@Benchmark
+	public void writeResultFile() throws Throwable {
+		Object writer = (Object) GeneJava.RESULT_FORMAT_OPEN.invokeExact(resultFormat, (Object) output.toPath(), WRITE_BUFFER_SIZE);
+		try {
+			GeneJava.WRITER_WRITE_ALL.invokeExact(writer, (Object) regions);
+		}
+		finally {
+			GeneJava.WRITER_CLOSE.invokeExact(writer);
+		}
+	}
+}
@@ -0,0 +1,75 @@
+package genejava.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+
+/**
+ * A reproducible chromosome of summary statistics. Markers are spaced about 100 bp apart with
+ * uniform background p-values. A fraction of markers, the signal density, starts an association
+ * signal: a run of roughly 50 kb in which about half the markers reach suggestive or genome-wide
+ * significance, so regions of realistic size appear at a rate set by the density.
+ */
+final class SyntheticChromosome {
+
+	static final String CHROMOSOME = "1";
+	static final int MEAN_SPACING = 100;
+	static final int SIGNAL_LENGTH = 50_000;
+
+	final int[] _positions;
+	final double[] _pvalues;
+
+	SyntheticChromosome(int markers, double signalDensity, long seed) {
+		_positions = new int[markers];
+		_pvalues = new double[markers];
+
+		var random = new SplittableRandom(seed);
+		int position = 0;
+		int signalEnd = -1;
+		for (int i = 0; i < markers; i++) {
+			position += 1 + random.nextInt(2 * MEAN_SPACING - 1);
+			if (random.nextDouble() < signalDensity) {
+				signalEnd = position + SIGNAL_LENGTH / 2 + random.nextInt(SIGNAL_LENGTH);
+			}
+
+			_positions[i] = position;
+			if (position <= signalEnd && random.nextBoolean()) {
+				_pvalues[i] = Math.pow(10, -3 - 7 * random.nextDouble());
+			}
+			else {
+				_pvalues[i] = random.nextDouble();
+			}
+		}
+	}
+
+	int Size() {
+		return _positions.length;
+	}
+
+	String Name(int marker) {
+		return "rs" + (marker + 1);
+	}
+
+	// A sealed MarkerStore holding the chromosome
+	Object ToStore() throws Throwable {
+		Object store = (Object) GeneJava.NEW_MARKER_STORE.invokeExact();
+		for (int i = 0; i < Size(); i++) {
+			GeneJava.STORE_ADD.invokeExact(store, (Object) Name(i), (Object) CHROMOSOME, _positions[i], _pvalues[i]);
+		}
+		GeneJava.STORE_SEAL.invokeExact(store);
+		return store;
+	}
+
+	// The chromosome as an input file: header, then name, chromosome, position, beta and p-value
+	byte[] ToText() {
+		var text = new StringBuilder(Size() * 40);
+		text.append("MarkerName\tChr\tPosition\tBeta\tPvalue\n");
+		for (int i = 0; i < Size(); i++) {
+			text.append(Name(i)).append('\t')
+				.append(CHROMOSOME).append('\t')
+				.append(_positions[i]).append('\t')
+				.append("0.01").append('\t')
+				.append(_pvalues[i]).append('\n');
+		}
+		return text.toString().getBytes(StandardCharsets.US_ASCII);
+	}
+}
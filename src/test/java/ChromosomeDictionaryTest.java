@@ -0,0 +1,62 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+// Chromosome names in natural genomic order, and the aliases that name the same chromosome.
+public class ChromosomeDictionaryTest {
+
+	@Test
+	void OrdersNumbersThenNamedChromosomesThenContigs() {
+		List<String> expected = new ArrayList<String>();
+		for (int i = 1; i <= 22; i++) {
+			expected.add(Integer.toString(i));
+		}
+		expected.addAll(List.of("X", "Y", "XY", "MT", "contig2", "contig10", "GL000192.1"));
+
+		List<String> shuffled = new ArrayList<String>(expected);
+		Collections.reverse(shuffled);
+		Collections.swap(shuffled, 0, 12);
+		shuffled.sort(ChromosomeDictionary.NATURAL_ORDER);
+		assertEquals(expected, shuffled);
+
+		var dictionary = new ChromosomeDictionary();
+		for (String chromosome : List.of("X", "10", "MT", "2", "1")) {
+			dictionary.CodeOf(chromosome);
+		}
+		assertArrayEquals(new int[] { 4, 3, 1, 0, 2 }, dictionary.CodesInNaturalOrder());
+	}
+
+	@Test
+	void AliasesNameTheSameChromosome() {
+		assertEquals("1", ChromosomeDictionary.Canonical("chr1"));
+		assertEquals("1", ChromosomeDictionary.Canonical("CHR01"));
+		assertEquals("10", ChromosomeDictionary.Canonical("010"));
+		assertEquals("0", ChromosomeDictionary.Canonical("00"));
+		assertEquals("X", ChromosomeDictionary.Canonical("chrx"));
+		assertEquals("XY", ChromosomeDictionary.Canonical("xy"));
+		assertEquals("MT", ChromosomeDictionary.Canonical("chrM"));
+		assertEquals("MT", ChromosomeDictionary.Canonical("mt"));
+		assertEquals("chr", ChromosomeDictionary.Canonical("chr"));
+		assertEquals("contig01", ChromosomeDictionary.Canonical("chrcontig01"));
+
+		var dictionary = new ChromosomeDictionary();
+		short code = dictionary.CodeOf("chr01");
+		assertEquals(code, dictionary.CodeOf("1"));
+		assertEquals(code, dictionary.Find("chr1"));
+		assertEquals("1", dictionary.NameOf(code));
+		assertEquals(dictionary.CodeOf("chrM"), dictionary.CodeOf("MT"));
+		assertEquals(2, dictionary.Size());
+		assertEquals(-1, dictionary.Find("2"));
+
+		assertEquals(1, ChromosomeDictionary.NumberOf("chr01"));
+		assertEquals(23, ChromosomeDictionary.NumberOf("chrX"));
+		assertEquals(26, ChromosomeDictionary.NumberOf("chrM"));
+		assertEquals(0, ChromosomeDictionary.NumberOf("GL000192.1"));
+		assertEquals(0, ChromosomeDictionary.Compare("chr01", "1"));
+	}
+}
@@ -0,0 +1,141 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// Gzip and BGZF input, which the loaders tell apart from plain text by their first bytes, and
+// BGZF blocks that do not add up.
+public class CompressedInputTest {
+
+	static final int BLOCK_DATA_SIZE = 60000;
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	@Test
+	void AnalysesGzipInput() throws Exception {
+		var input = _directory.resolve("markers.txt.gz");
+		try (OutputStream gzip = new GZIPOutputStream(Files.newOutputStream(input))) {
+			gzip.write(Text());
+		}
+		AssertBaselineOutput(input);
+	}
+
+	@Test
+	void AnalysesBgzfInput() throws Exception {
+		var input = _directory.resolve("markers.txt.bgz");
+		Files.write(input, Bgzf(Text()));
+		AssertBaselineOutput(input);
+	}
+
+	@Test
+	void ReadsBgzfBlocksInOrder() throws Exception {
+		byte[] text = Text();
+		try (InputStream input = new BgzfInputStream(new ByteArrayInputStream(Bgzf(text)), 2)) {
+			assertArrayEquals(text, input.readAllBytes());
+		}
+	}
+
+	@Test
+	void RejectsABlockSizeTooSmallForItsHeader() throws Exception {
+		byte[] bgzf = Bgzf(Text());
+		// BSIZE - 1, in the BC subfield after the 12 byte header and its 4 byte subfield header
+		bgzf[16] = 10;
+		bgzf[17] = 0;
+		AssertCorrupt(bgzf);
+	}
+
+	@Test
+	void RejectsAnUncompressedSizeLargerThanABlock() throws Exception {
+		byte[] bgzf = Bgzf(Text());
+		int blockSize = ((bgzf[16] & 0xff) | (bgzf[17] & 0xff) << 8) + 1;
+		bgzf[blockSize - 1] = 0x7f;
+		AssertCorrupt(bgzf);
+	}
+
+	@Test
+	void RejectsATruncatedBlock() throws Exception {
+		byte[] bgzf = Bgzf(Text());
+		AssertCorrupt(Arrays.copyOf(bgzf, 100));
+	}
+
+	private void AssertBaselineOutput(Path input) throws Exception {
+		var output = _directory.resolve("regions.txt");
+		var options = new RunOptions();
+		options.Threads = 2;
+		UniqueRegions.CreateAnalyzer(input.toString(), output.toString(), "0.00001", "0.0001", "500000", options,
+				new SuggestiveMarkerIndex(0.0001)).RunThroughDataset();
+		assertArrayEquals(Files.readAllBytes(RegionOutputTest.Fixture("regions-0.00001-0.0001-500000.txt")), Files.readAllBytes(output));
+	}
+
+	private static void AssertCorrupt(byte[] bgzf) {
+		var e = assertThrows(IOException.class, () -> {
+			try (InputStream input = new BgzfInputStream(new ByteArrayInputStream(bgzf), 2)) {
+				input.readAllBytes();
+			}
+		});
+		assertTrue(e.getMessage().contains("BGZF"), e.getMessage());
+	}
+
+	private static byte[] Text() throws IOException {
+		return Files.readAllBytes(RegionOutputTest.Fixture("markers.txt"));
+	}
+
+	// The text as BGZF blocks, ending with the empty block bgzip writes
+	static byte[] Bgzf(byte[] text) {
+		var bgzf = new ByteArrayOutputStream();
+		for (int offset = 0; offset < text.length; offset += BLOCK_DATA_SIZE) {
+			WriteBlock(bgzf, text, offset, Math.min(BLOCK_DATA_SIZE, text.length - offset));
+		}
+		WriteBlock(bgzf, text, 0, 0);
+		return bgzf.toByteArray();
+	}
+
+	private static void WriteBlock(ByteArrayOutputStream bgzf, byte[] text, int offset, int length) {
+		var deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		deflater.setInput(text, offset, length);
+		deflater.finish();
+		byte[] compressed = new byte[length + 1024];
+		int compressedLength = 0;
+		while (!deflater.finished()) {
+			compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+		}
+		deflater.end();
+
+		var crc = new CRC32();
+		crc.update(text, offset, length);
+		int blockSize = BgzfInputStream.HEADER_SIZE + 6 + compressedLength + BgzfInputStream.TRAILER_SIZE;
+		bgzf.writeBytes(new byte[] { 0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0,
+				'B', 'C', 2, 0, (byte) (blockSize - 1), (byte) ((blockSize - 1) >> 8) });
+		bgzf.write(compressed, 0, compressedLength);
+		WriteInt(bgzf, (int) crc.getValue());
+		WriteInt(bgzf, length);
+	}
+
+	private static void WriteInt(ByteArrayOutputStream output, int value) {
+		output.write(value);
+		output.write(value >> 8);
+		output.write(value >> 16);
+		output.write(value >> 24);
+	}
+}
@@ -0,0 +1,68 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The memory budget of the DatasetCache, over the stores and the suggestive indices built for them.
+public class DatasetCacheTest {
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	@Test
+	void EvictsLeastRecentlyUsedDatasets() throws Exception {
+		var first = Copy("first.txt");
+		var second = Copy("second.txt");
+		long storeBytes = new DatasetCache(Long.MAX_VALUE, new RunOptions()).Get(first).GetEstimatedBytes();
+
+		var cache = new DatasetCache(storeBytes + storeBytes / 2, new RunOptions());
+		var firstDataset = cache.Get(first);
+		assertSame(firstDataset, cache.Get(first));
+		var secondDataset = cache.Get(second);
+
+		assertEquals(1, cache.GetDatasets().size());
+		assertSame(secondDataset, cache.GetDatasets().get(0));
+		assertEquals(storeBytes, cache.UsedBytes());
+		assertNotSame(firstDataset, cache.Get(first));
+	}
+
+	@Test
+	void CountsSuggestiveIndicesTowardTheBudget() throws Exception {
+		var input = Copy("markers.txt");
+		var probe = new DatasetCache(Long.MAX_VALUE, new RunOptions());
+		var probed = probe.Get(input);
+		long storeBytes = probed.GetEstimatedBytes();
+		// Every marker is suggestive at a threshold of 1
+		long indexBytes = probe.GetSuggestiveIndex(probed, 1).EstimatedBytes();
+		assertEquals(storeBytes + indexBytes, probe.UsedBytes());
+
+		long budget = storeBytes + indexBytes * 5 / 2;
+		var cache = new DatasetCache(budget, new RunOptions());
+		var dataset = cache.Get(input);
+		double[] thresholds = { 1, 0.99, 0.98, 0.97, 0.96 };
+		for (double threshold : thresholds) {
+			var index = cache.GetSuggestiveIndex(dataset, threshold);
+			assertSame(index, cache.GetSuggestiveIndex(dataset, threshold));
+			assertTrue(cache.UsedBytes() <= budget, cache.UsedBytes() + " bytes over a budget of " + budget);
+			assertEquals(dataset.GetEstimatedBytes(), cache.UsedBytes());
+		}
+		assertTrue(dataset._suggestiveIndices.size() <= 2);
+		assertTrue(dataset._suggestiveIndices.containsKey(thresholds[thresholds.length - 1]));
+	}
+
+	private Path Copy(String name) throws Exception {
+		return Files.copy(RegionOutputTest.Fixture("markers.txt"), _directory.resolve(name));
+	}
+}
@@ -0,0 +1,52 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The list based GeneAnalyzer, which rejects a region whose lead marker led an earlier one.
+public class GeneAnalyzerTest {
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	// Only the same marker counts as a repeated lead, not another one with the same name
+	@Test
+	void MarkersSharingANameLeadTheirOwnRegions() throws Exception {
+		var named = _directory.resolve("named.txt");
+		var unnamed = _directory.resolve("unnamed.txt");
+		Files.copy(RegionOutputTest.Fixture("markers.txt"), named);
+		List<String> lines = Files.readAllLines(named);
+		List<String> dotted = new ArrayList<String>();
+		dotted.add(lines.get(0));
+		for (String line : lines.subList(1, lines.size())) {
+			dotted.add("." + line.substring(line.indexOf('\t')));
+		}
+		Files.write(unnamed, dotted);
+
+		var expected = Run(named);
+		var actual = Run(unnamed);
+		assertEquals(expected.size(), actual.size());
+		for (int i = 1; i < expected.size(); i++) {
+			String[] fields = expected.get(i).split("\t");
+			fields[1] = ".";
+			assertEquals(String.join("\t", fields), actual.get(i));
+		}
+	}
+
+	private List<String> Run(Path input) throws Exception {
+		var output = _directory.resolve(input.getFileName() + ".out");
+		new GeneAnalyzer(0.00001, 0.0001, input.toString(), 500000, output.toString()).GetMyRegions();
+		return Files.readAllLines(output);
+	}
+}
@@ -0,0 +1,50 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+// How a MarkerBufferPool hands out column storage, and that stores built on one grow into it.
+public class MarkerBufferPoolTest {
+
+	@Test
+	void AcquiresSmallestColumnsThatFit() {
+		var pool = new MarkerBufferPool(false, Long.MAX_VALUE);
+		var small = new HeapColumnStorage(1024);
+		var medium = new HeapColumnStorage(2048);
+		var large = new HeapColumnStorage(4096);
+		pool.ReleaseColumns(large);
+		pool.ReleaseColumns(small);
+		pool.ReleaseColumns(medium);
+
+		assertSame(medium, pool.AcquireColumns(1500));
+		assertSame(small, pool.AcquireColumns(1000));
+		assertEquals(5000, pool.AcquireColumns(5000).Capacity());
+		assertSame(large, pool.AcquireColumns(1));
+		assertEquals(0, pool.PooledBytes());
+	}
+
+	@Test
+	void GrowsIntoPooledColumns() {
+		var pool = new MarkerBufferPool(false, Long.MAX_VALUE);
+		var initial = new HeapColumnStorage(MarkerBufferPool.INITIAL_CAPACITY);
+		var grown = new HeapColumnStorage(4 * MarkerBufferPool.INITIAL_CAPACITY);
+		pool.ReleaseColumns(initial);
+		pool.ReleaseColumns(grown);
+
+		var store = new MarkerStore(pool);
+		int markers = MarkerBufferPool.INITIAL_CAPACITY + 1;
+		for (int i = 0; i < markers; i++) {
+			store.Add("rs" + i, "1", 1000 + i, i / 1e6);
+		}
+
+		var chromosome = store.GetChromosome("1");
+		assertSame(grown, chromosome._columns);
+		for (int i = 0; i < markers; i++) {
+			assertEquals(1000 + i, chromosome.GetPosition(i));
+			assertEquals(i / 1e6, chromosome.GetPvalue(i));
+			assertEquals("rs" + i, chromosome.GetName(i));
+		}
+		// The storage it grew out of is back in the pool
+		assertSame(initial, pool.AcquireColumns(1));
+	}
+}
@@ -0,0 +1,149 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// The marker cache sidecar: read back as written, and treated as absent once it is stale,
+// truncated or corrupt, in which case a cached run parses the input again.
+public class MarkerStoreCacheTest {
+
+	static final int HEADER_SIZE = 32;
+
+	@TempDir
+	Path _directory;
+
+	Path _input;
+	Path _sidecar;
+	MarkerStore _store;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	@BeforeEach
+	void WriteSidecar() throws Exception {
+		_input = Files.copy(RegionOutputTest.Fixture("markers.txt"), _directory.resolve("markers.txt"));
+		_store = MarkerLoader.Load(_input, 1);
+		_store.Seal();
+		MarkerStoreCache.Write(_input, _store);
+		_sidecar = MarkerStoreCache.SidecarFor(_input);
+	}
+
+	@ParameterizedTest
+	@ValueSource(booleans = { false, true })
+	void LoadsTheStoreItWrote(boolean offHeap) throws Exception {
+		var loaded = MarkerStoreCache.TryLoad(_input, offHeap);
+		assertNotNull(loaded);
+		assertEquals(_store.Size(), loaded.Size());
+		assertEquals(_store.GetChromosomes().size(), loaded.GetChromosomes().size());
+		for (ChromosomeColumns expected : _store.GetChromosomes()) {
+			var actual = loaded.GetChromosome(expected.GetChromosome());
+			assertEquals(expected.Size(), actual.Size());
+			for (int i = 0; i < expected.Size(); i++) {
+				assertEquals(expected.GetPosition(i), actual.GetPosition(i));
+				assertEquals(expected.GetPvalue(i), actual.GetPvalue(i));
+				assertEquals(expected.GetName(i), actual.GetName(i));
+			}
+		}
+	}
+
+	@Test
+	void IgnoredOnceTheInputIsModified() throws Exception {
+		Files.setLastModifiedTime(_input, FileTime.fromMillis(Files.getLastModifiedTime(_input).toMillis() - 60_000));
+		assertNull(MarkerStoreCache.TryLoad(_input));
+	}
+
+	@Test
+	void IgnoredOnceTheInputChangesSize() throws Exception {
+		var modified = Files.getLastModifiedTime(_input);
+		Files.writeString(_input, "rs0\t1\t1\t0\t0.5\n", StandardOpenOption.APPEND);
+		Files.setLastModifiedTime(_input, modified);
+		assertNull(MarkerStoreCache.TryLoad(_input));
+	}
+
+	@Test
+	void IgnoredWhenTruncated() throws Exception {
+		long size = Files.size(_sidecar);
+		for (long length : new long[] { 0, HEADER_SIZE - 1, HEADER_SIZE + 3, size / 2, size - 1 }) {
+			Truncate(length);
+			assertNull(MarkerStoreCache.TryLoad(_input), "Truncated to " + length + " bytes");
+		}
+	}
+
+	@Test
+	void IgnoredWithTrailingBytes() throws Exception {
+		Files.write(_sidecar, new byte[] { 1, 2, 3 }, StandardOpenOption.APPEND);
+		assertNull(MarkerStoreCache.TryLoad(_input));
+	}
+
+	@Test
+	void IgnoredWhenANameLiesOutsideTheArena() throws Exception {
+		var first = _store.GetChromosomes().get(0);
+		long nameOffsets = HEADER_SIZE + 2 + Utf8Length(first) + 4 + 12L * first.Size();
+		PutInt(nameOffsets, _store._names.Size());
+		assertNull(MarkerStoreCache.TryLoad(_input));
+		assertNull(MarkerStoreCache.TryLoad(_input, true));
+
+		PutInt(nameOffsets, -1);
+		assertNull(MarkerStoreCache.TryLoad(_input));
+	}
+
+	@Test
+	void IgnoredWhenAChromosomeRepeats() throws Exception {
+		var first = _store.GetChromosomes().get(0);
+		var second = _store.GetChromosomes().get(1);
+		assertEquals(Utf8Length(first), Utf8Length(second));
+		long secondName = HEADER_SIZE + 2 + Utf8Length(first) + 4 + 20L * first.Size() + 2;
+		try (var file = new RandomAccessFile(_sidecar.toFile(), "rw")) {
+			file.seek(secondName);
+			file.write(first.GetChromosome().getBytes(StandardCharsets.UTF_8));
+		}
+		assertNull(MarkerStoreCache.TryLoad(_input));
+	}
+
+	// A run with the cache on parses the input again and writes a sidecar that loads
+	@Test
+	void CorruptSidecarIsRewritten() throws Exception {
+		PutInt(HEADER_SIZE + 2 + Utf8Length(_store.GetChromosomes().get(0)) + 4 + 12L * _store.GetChromosomes().get(0).Size(), Integer.MAX_VALUE);
+		var output = _directory.resolve("regions.txt");
+		var options = new RunOptions();
+		options.Cache = true;
+		UniqueRegions.CreateAnalyzer(_input.toString(), output.toString(), "0.00001", "0.0001", "500000", options,
+				new SuggestiveMarkerIndex(0.0001)).RunThroughDataset();
+
+		assertArrayEquals(Files.readAllBytes(RegionOutputTest.Fixture("regions-0.00001-0.0001-500000.txt")), Files.readAllBytes(output));
+		assertNotNull(MarkerStoreCache.TryLoad(_input));
+	}
+
+	private static int Utf8Length(ChromosomeColumns columns) {
+		return columns.GetChromosome().getBytes(StandardCharsets.UTF_8).length;
+	}
+
+	private void Truncate(long length) throws Exception {
+		try (var file = new RandomAccessFile(_sidecar.toFile(), "rw")) {
+			file.setLength(length);
+		}
+	}
+
+	private void PutInt(long position, int value) throws Exception {
+		try (var file = new RandomAccessFile(_sidecar.toFile(), "rw")) {
+			file.seek(position);
+			file.writeInt(value);
+		}
+	}
+}
@@ -0,0 +1,153 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+// Runs the analysis over the markers.txt fixture and compares the result file byte for byte with
+// the output the original List<Marker> implementation wrote for the same thresholds, which is kept
+// next to the fixture as regions-<index>-<suggestive>-<searchSpace>.txt.
+public class RegionOutputTest {
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0.00001, 0.0001, 500000", "0.000001, 0.001, 250000", "0.0001, 0.0001, 100000" })
+	void MatchesBaseline(String index, String suggestive, String searchSpace) throws Exception {
+		var output = _directory.resolve("regions.txt");
+		CreateAnalyzer(index, suggestive, searchSpace, output, new RunOptions()).RunThroughDataset();
+		AssertSameFile(Expected(index, suggestive, searchSpace), output);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0.00001, 0.0001, 500000", "0.000001, 0.001, 250000", "0.0001, 0.0001, 100000" })
+	void MatchesBaselineOffHeap(String index, String suggestive, String searchSpace) throws Exception {
+		var output = _directory.resolve("regions.txt");
+		var options = new RunOptions();
+		options.OffHeap = true;
+		CreateAnalyzer(index, suggestive, searchSpace, output, options).RunThroughDataset();
+		AssertSameFile(Expected(index, suggestive, searchSpace), output);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0.00001, 0.0001, 500000", "0.000001, 0.001, 250000", "0.0001, 0.0001, 100000" })
+	void MatchesBaselinePipelined(String index, String suggestive, String searchSpace) throws Exception {
+		var output = _directory.resolve("regions.txt");
+		var options = new RunOptions();
+		var pipelinedAnalyzer = new PipelinedAnalyzer(Fixture("markers.txt").toString(), output.toString(),
+				() -> CreateAnalyzer(index, suggestive, searchSpace, output, options));
+		pipelinedAnalyzer.setParallelism(2);
+		pipelinedAnalyzer.RunThroughDataset();
+		AssertSameFile(Expected(index, suggestive, searchSpace), output);
+	}
+
+	// Chromosome 10 right after 1, which the default run still numbers in natural order but the
+	// pipeline, having written chromosome 10 first, could not
+	@Test
+	void PipelineRejectsChromosomesOutOfNaturalOrder() throws Exception {
+		List<String> lines = Files.readAllLines(Fixture("markers.txt"));
+		List<String> reordered = new ArrayList<String>(lines.subList(0, 1));
+		List<String> tenth = new ArrayList<String>();
+		List<String> rest = new ArrayList<String>();
+		for (String line : lines.subList(1, lines.size())) {
+			(line.split("\t")[1].equals("10") ? tenth : rest).add(line);
+		}
+		int second = 0;
+		while (!rest.get(second).split("\t")[1].equals("2")) {
+			second++;
+		}
+		reordered.addAll(rest.subList(0, second));
+		reordered.addAll(tenth);
+		reordered.addAll(rest.subList(second, rest.size()));
+		var input = Files.write(_directory.resolve("reordered.txt"), reordered);
+
+		var output = _directory.resolve("regions.txt");
+		var options = new RunOptions();
+		UniqueRegions.CreateAnalyzer(input.toString(), output.toString(), "0.00001", "0.0001", "500000", options,
+				new SuggestiveMarkerIndex(0.0001)).RunThroughDataset();
+		AssertSameFile(Expected("0.00001", "0.0001", "500000"), output);
+
+		var pipelinedAnalyzer = new PipelinedAnalyzer(input.toString(), _directory.resolve("pipelined.txt").toString(),
+				() -> CreateAnalyzer("0.00001", "0.0001", "500000", output, options));
+		pipelinedAnalyzer.setParallelism(2);
+		assertThrows(ArithmeticException.class, pipelinedAnalyzer::RunThroughDataset);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0.00001, 0.0001, 500000", "0.000001, 0.001, 250000", "0.0001, 0.0001, 100000" })
+	void MatchesBaselineInBatch(String index, String suggestive, String searchSpace) throws Exception {
+		// The same input twice, so the second run reads into storage the first one gave back
+		var manifest = _directory.resolve("manifest.txt");
+		Files.writeString(manifest, Fixture("markers.txt") + "\tfirst.txt\n" + Fixture("markers.txt") + "\tsecond.txt\n");
+		var outputDirectory = _directory.resolve("out");
+		TraitBatch.main(new String[] { manifest.toString(), outputDirectory.toString(), index, suggestive, searchSpace, "--threads", "2", "--quiet" });
+		AssertSameFile(Expected(index, suggestive, searchSpace), outputDirectory.resolve("first.txt"));
+		AssertSameFile(Expected(index, suggestive, searchSpace), outputDirectory.resolve("second.txt"));
+	}
+
+	// The most significant rows of the full output, in order of significance and numbered again
+	@ParameterizedTest
+	@CsvSource({ "0.00001, 0.0001, 500000", "0.000001, 0.001, 250000", "0.0001, 0.0001, 100000" })
+	void TopRegionsMatchBaseline(String index, String suggestive, String searchSpace) throws Exception {
+		var output = _directory.resolve("regions.txt");
+		var options = new RunOptions();
+		options.Top = 5;
+		CreateAnalyzer(index, suggestive, searchSpace, output, options).RunThroughDataset();
+
+		var baseline = Files.readAllLines(Expected(index, suggestive, searchSpace));
+		List<String> rows = new ArrayList<String>(baseline.subList(1, baseline.size()));
+		rows.sort(Comparator.comparingDouble(row -> Double.parseDouble(row.split("\t")[4])));
+		List<String> expected = new ArrayList<String>();
+		expected.add(baseline.get(0));
+		for (int i = 0; i < Math.min(options.Top, rows.size()); i++) {
+			expected.add((i + 1) + rows.get(i).substring(rows.get(i).indexOf('\t')));
+		}
+		assertEquals(expected, Files.readAllLines(output));
+	}
+
+	private static RecursiveGeneAnalyzer CreateAnalyzer(String index, String suggestive, String searchSpace, Path output, RunOptions options) {
+		options.Threads = 2;
+		return UniqueRegions.CreateAnalyzer(Fixture("markers.txt").toString(), output.toString(), index, suggestive, searchSpace,
+				options, new SuggestiveMarkerIndex(Double.parseDouble(suggestive)));
+	}
+
+	private static Path Expected(String index, String suggestive, String searchSpace) {
+		return Fixture("regions-" + index + "-" + suggestive + "-" + searchSpace + ".txt");
+	}
+
+	static Path Fixture(String name) {
+		var resource = RegionOutputTest.class.getResource(name);
+		if (resource == null) {
+			throw new IllegalStateException("Missing test resource " + name);
+		}
+		try {
+			return Paths.get(resource.toURI());
+		}
+		catch (URISyntaxException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void AssertSameFile(Path expected, Path actual) throws IOException {
+		assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual), actual + " differs from " + expected);
+	}
+}
@@ -0,0 +1,107 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+// Overlap, point and nearest queries of a RegionQueryIndex, checked against a scan over every region.
+public class RegionQueryIndexTest {
+
+	@Test
+	void FindsRegionsOfTheFixtureOutput() throws Exception {
+		var regions = RegionReader.Read(RegionOutputTest.Fixture("regions-0.00001-0.0001-500000.txt"));
+		var index = new RegionQueryIndex(regions);
+		assertEquals(regions.size(), index.Size());
+		for (Region region : regions) {
+			assertTrue(index.At("chr" + region.getChromosome(), region.getPosition()).contains(region));
+			assertEquals(Scan(regions, region.getChromosome(), region.getRegionStart() - 1_000_000, region.getRegionStop() + 1_000_000),
+					index.Overlapping(region.getChromosome(), region.getRegionStart() - 1_000_000, region.getRegionStop() + 1_000_000));
+		}
+	}
+
+	// One long region ahead of many short ones, each of those inside it or after it
+	@Test
+	void FindsNestedRegions() {
+		List<Region> regions = new ArrayList<Region>();
+		regions.add(NewRegion("1", 1, 0, 1_000_000));
+		for (int i = 0; i < 100; i++) {
+			regions.add(NewRegion("1", i + 2, i * 20_000, i * 20_000 + 5_000));
+		}
+		var index = new RegionQueryIndex(regions);
+
+		assertEquals(List.of(regions.get(0)), index.At("1", 7_000));
+		// Both start at 0, so the shorter comes first
+		assertEquals(List.of(regions.get(1), regions.get(0)), index.At("1", 3_000));
+		assertEquals(List.of(regions.get(0), regions.get(2), regions.get(3)), index.Overlapping("1", 25_000, 40_000));
+		assertEquals(List.of(regions.get(100)), index.At("1", 1_982_000));
+		assertSame(regions.get(0), index.Nearest("1", 7_000));
+	}
+
+	@Test
+	void MatchesAScanOverRandomRegions() {
+		var random = new Random(7);
+		List<Region> regions = new ArrayList<Region>();
+		for (int i = 0; i < 400; i++) {
+			int start = random.nextInt(1_000_000);
+			// Mostly short regions, some of them long enough to hold many others
+			int length = random.nextInt(10) == 0 ? random.nextInt(300_000) : random.nextInt(5_000);
+			regions.add(NewRegion(random.nextBoolean() ? "1" : "X", i + 1, start, start + length));
+		}
+		var index = new RegionQueryIndex(regions);
+
+		for (int i = 0; i < 2000; i++) {
+			String chromosome = random.nextBoolean() ? "chr1" : "chrX";
+			int start = random.nextInt(1_100_000) - 50_000;
+			int stop = start + random.nextInt(50_000);
+			assertEquals(Scan(regions, chromosome, start, stop), index.Overlapping(chromosome, start, stop));
+			assertEquals(Scan(regions, chromosome, start, start), index.At(chromosome, start));
+
+			var nearest = index.Nearest(chromosome, start);
+			long distance = Long.MAX_VALUE;
+			for (Region region : regions) {
+				if (ChromosomeDictionary.Canonical(region.getChromosome()).equals(ChromosomeDictionary.Canonical(chromosome))) {
+					distance = Math.min(distance, Distance(region, start));
+				}
+			}
+			assertEquals(distance, Distance(nearest, start));
+		}
+		assertTrue(index.Overlapping("2", 0, 1_000_000).isEmpty());
+		assertNull(index.Nearest("2", 0));
+	}
+
+	// The overlapping regions in the order the index returns them, by start, then stop, then index
+	private static List<Region> Scan(List<Region> regions, String chromosome, int start, int stop) {
+		List<Region> overlapping = new ArrayList<Region>();
+		for (Region region : regions) {
+			if (ChromosomeDictionary.Canonical(region.getChromosome()).equals(ChromosomeDictionary.Canonical(chromosome))
+					&& region.getRegionStart() <= stop && region.getRegionStop() >= start) {
+				overlapping.add(region);
+			}
+		}
+		overlapping.sort(RegionQueryIndex.BY_START);
+		return overlapping;
+	}
+
+	private static long Distance(Region region, int position) {
+		if (position < region.getRegionStart()) {
+			return (long) region.getRegionStart() - position;
+		}
+		return Math.max(0, (long) position - region.getRegionStop());
+	}
+
+	private static Region NewRegion(String chromosome, int regionIndex, int start, int stop) {
+		var region = new Region();
+		region.setChromosome(chromosome);
+		region.setRegionIndex(regionIndex);
+		region.setMarkerName("rs" + regionIndex);
+		region.setPosition(start);
+		region.setRegionStart(start);
+		region.setRegionStop(stop);
+		return region;
+	}
+}
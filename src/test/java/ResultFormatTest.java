@@ -0,0 +1,61 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// The BED and binary result files of a run over the fixture, checked against the baseline TSV: the
+// binary file reads back through RegionReader to the same regions, and BED has one interval per region.
+public class ResultFormatTest {
+
+	static final Path BASELINE = RegionOutputTest.Fixture("regions-0.00001-0.0001-500000.txt");
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	// The smallest buffer makes the writers flush in the middle of a region
+	@ParameterizedTest
+	@ValueSource(ints = { 64, RegionWriter.DEFAULT_BUFFER_SIZE })
+	void BinaryReadsBackAsTheBaseline(int writeBufferSize) throws Exception {
+		var binary = Run(ResultFormat.BINARY, writeBufferSize);
+		var tsv = _directory.resolve("regions.txt");
+		try (RegionWriter writer = ResultFormat.TSV.Open(tsv, 64)) {
+			writer.WriteAll(RegionReader.Read(binary));
+		}
+		assertArrayEquals(Files.readAllBytes(BASELINE), Files.readAllBytes(tsv));
+	}
+
+	@Test
+	void BedHasOneIntervalPerRegion() throws Exception {
+		var bed = Run(ResultFormat.BED, 64);
+		List<String> expected = new ArrayList<String>();
+		for (Region region : RegionReader.Read(BASELINE)) {
+			expected.add(region.getChromosome() + "\t" + (region.getRegionStart() - 1) + "\t" + region.getRegionStop() + "\t" + region.getMarkerName());
+		}
+		assertEquals(expected, Files.readAllLines(bed));
+	}
+
+	private Path Run(ResultFormat format, int writeBufferSize) {
+		var output = _directory.resolve("regions." + format.name().toLowerCase());
+		var options = new RunOptions();
+		options.Threads = 2;
+		options.Format = format;
+		options.WriteBufferSize = writeBufferSize;
+		UniqueRegions.CreateAnalyzer(RegionOutputTest.Fixture("markers.txt").toString(), output.toString(), "0.00001", "0.0001", "500000",
+				options, new SuggestiveMarkerIndex(0.0001)).RunThroughDataset();
+		return output;
+	}
+}
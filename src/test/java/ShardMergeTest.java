@@ -0,0 +1,59 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+// Every shard of a sharded run, merged, has to give the file one unsharded run writes.
+public class ShardMergeTest {
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = { 2, 3, 7 })
+	void MergedShardsMatchTheBaseline(int shardCount) throws Exception {
+		List<String> args = new ArrayList<String>();
+		var output = _directory.resolve("regions.txt");
+		args.add(output.toString());
+		// Merged in reverse, so the order of the partial files does not decide the order of the regions
+		for (int shard = shardCount; shard >= 1; shard--) {
+			args.add(RunShard(shard, shardCount).toString());
+		}
+		args.add("--quiet");
+		ShardMerge.main(args.toArray(new String[0]));
+
+		assertArrayEquals(Files.readAllBytes(RegionOutputTest.Fixture("regions-0.00001-0.0001-500000.txt")), Files.readAllBytes(output));
+	}
+
+	@Test
+	void RejectsAShardPassedTwice() throws Exception {
+		var part = RunShard(1, 2).toString();
+		var output = _directory.resolve("regions.txt").toString();
+		assertThrows(IllegalArgumentException.class, () -> ShardMerge.main(new String[] { output, part, part, "--quiet" }));
+	}
+
+	private Path RunShard(int shard, int shardCount) {
+		var part = _directory.resolve("part-" + shard + ".txt");
+		var options = new RunOptions();
+		options.Threads = 2;
+		options.Shard = shard;
+		options.ShardCount = shardCount;
+		UniqueRegions.CreateAnalyzer(RegionOutputTest.Fixture("markers.txt").toString(), part.toString(), "0.00001", "0.0001", "500000",
+				options, new SuggestiveMarkerIndex(0.0001)).RunThroughDataset();
+		return part;
+	}
+}
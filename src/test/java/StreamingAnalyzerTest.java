@@ -0,0 +1,84 @@
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+// Streaming clumps sorted input with the sweep rules while reading it, so it has to write what a
+// sweep run over the loaded input writes, and has to refuse input it cannot clump that way.
+public class StreamingAnalyzerTest {
+
+	@TempDir
+	Path _directory;
+
+	@BeforeAll
+	static void Quiet() {
+		Diagnostics.setEnabled(false);
+	}
+
+	@ParameterizedTest
+	@CsvSource({ "0.00001, 0.0001, 500000", "0.000001, 0.001, 250000", "0.0001, 0.0001, 100000" })
+	void MatchesTheSweepEngine(String index, String suggestive, String searchSpace) throws Exception {
+		var input = RegionOutputTest.Fixture("markers.txt");
+		var swept = _directory.resolve("swept.txt");
+		var options = new RunOptions();
+		options.Engine = "sweep";
+		UniqueRegions.CreateAnalyzer(input.toString(), swept.toString(), index, suggestive, searchSpace, options,
+				new SuggestiveMarkerIndex(Double.parseDouble(suggestive))).RunThroughDataset();
+
+		var streamed = _directory.resolve("streamed.txt");
+		Stream(input, streamed, index, suggestive, searchSpace);
+
+		assertArrayEquals(Files.readAllBytes(swept), Files.readAllBytes(streamed));
+	}
+
+	@Test
+	void RejectsPositionsOutOfOrder() throws Exception {
+		List<String> lines = Files.readAllLines(RegionOutputTest.Fixture("markers.txt"));
+		Collections.swap(lines, 10, 20);
+		var input = Files.write(_directory.resolve("unsorted.txt"), lines);
+		assertThrows(ArithmeticException.class, () -> Stream(input, _directory.resolve("regions.txt"), "0.00001", "0.0001", "500000"));
+	}
+
+	@Test
+	void RejectsAChromosomeThatComesBack() throws Exception {
+		List<String> lines = Files.readAllLines(RegionOutputTest.Fixture("markers.txt"));
+		List<String> split = new ArrayList<String>(lines.subList(0, 1));
+		// The second half of chromosome 1 after chromosome 2
+		List<String> first = new ArrayList<String>();
+		List<String> second = new ArrayList<String>();
+		List<String> rest = new ArrayList<String>();
+		for (String line : lines.subList(1, lines.size())) {
+			String chromosome = line.split("\t")[1];
+			(chromosome.equals("1") ? first : chromosome.equals("2") ? second : rest).add(line);
+		}
+		split.addAll(first.subList(0, first.size() / 2));
+		split.addAll(second);
+		split.addAll(first.subList(first.size() / 2, first.size()));
+		split.addAll(rest);
+		var input = Files.write(_directory.resolve("split.txt"), split);
+		assertThrows(ArithmeticException.class, () -> Stream(input, _directory.resolve("regions.txt"), "0.00001", "0.0001", "500000"));
+	}
+
+	@Test
+	void RejectsOptionsItWouldIgnore() {
+		RunOptions.Parse(new String[] { "--streaming", "--engine", "sweep" }, 0);
+		assertThrows(IllegalArgumentException.class, () -> RunOptions.Parse(new String[] { "--streaming", "--engine", "recursive" }, 0));
+		assertThrows(IllegalArgumentException.class, () -> RunOptions.Parse(new String[] { "--cache", "--streaming" }, 0));
+		assertThrows(IllegalArgumentException.class, () -> RunOptions.Parse(new String[] { "--streaming", "--offheap" }, 0));
+	}
+
+	private static void Stream(Path input, Path output, String index, String suggestive, String searchSpace) {
+		new StreamingAnalyzer(Double.parseDouble(index), Double.parseDouble(suggestive), input.toString(),
+				Integer.parseInt(searchSpace), output.toString()).RunThroughDataset();
+	}
+}